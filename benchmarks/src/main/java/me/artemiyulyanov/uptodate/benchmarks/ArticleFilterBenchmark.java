@@ -0,0 +1,52 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import me.artemiyulyanov.uptodate.controllers.api.articles.filters.ArticleFilter;
+import me.artemiyulyanov.uptodate.models.Article;
+import me.artemiyulyanov.uptodate.web.PageableObject;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning the filters of /api/articles/search into the specification of the query: only the text query,
+ * and the text query together with the topics and the order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleFilterBenchmark {
+    @Param({"query", "all"})
+    private String filtersSet;
+
+    private HashMap<String, Object> filters;
+    private PageableObject<Article> filteredPageableObject;
+
+    @Setup
+    public void setUp() {
+        filters = new HashMap<>();
+        filters.put("query", "virtual threads");
+
+        if (filtersSet.equals("all")) {
+            filters.put("topics", List.of("technologies", "science"));
+            filters.put("sort_by", "descending");
+        }
+
+        filteredPageableObject = ArticleFilter.applyFilters(PageableObject.of(Article.class, 0, 20), filters);
+    }
+
+    @Benchmark
+    public PageableObject<Article> applyFilters() {
+        return ArticleFilter.applyFilters(PageableObject.of(Article.class, 0, 20), filters);
+    }
+
+    @Benchmark
+    public Specification<Article> commonSpecification() {
+        return filteredPageableObject.getCommonSpecification();
+    }
+}
@@ -0,0 +1,90 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (-rf json) benchmark by benchmark and exits with 1 if any of them has become slower
+ * by more than the threshold (10% by default) and by more than the error of both scores.
+ *
+ * java -cp benchmarks/target/benchmarks.jar me.artemiyulyanov.uptodate.benchmarks.BenchmarkComparison base.json new.json [threshold]
+ */
+public final class BenchmarkComparison {
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <base.json> <new.json> [threshold, e.g. 0.1]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+        Map<String, JsonNode> baseResults = read(new File(args[0]));
+        Map<String, JsonNode> newResults = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Base", "New", "Change");
+
+        for (Map.Entry<String, JsonNode> entry : newResults.entrySet()) {
+            JsonNode newMetric = entry.getValue().get("primaryMetric");
+            JsonNode baseResult = baseResults.get(entry.getKey());
+
+            if (baseResult == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", newMetric.get("score").asDouble(), "new");
+                continue;
+            }
+
+            JsonNode baseMetric = baseResult.get("primaryMetric");
+            double baseScore = baseMetric.get("score").asDouble();
+            double newScore = newMetric.get("score").asDouble();
+
+            // the throughput is better when higher, every other mode measures a time
+            boolean higherIsBetter = entry.getValue().get("mode").asText().equals("thrpt");
+            double change = (newScore - baseScore) / baseScore;
+            double worsening = higherIsBetter ? -change : change;
+            double error = errorOf(baseMetric) + errorOf(newMetric);
+            boolean regressed = worsening > threshold && Math.abs(newScore - baseScore) > error;
+
+            if (regressed) regressions++;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), baseScore, newScore, change * 100, regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(keyOf(result), result);
+        }
+        return results;
+    }
+
+    private static String keyOf(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText().replace("me.artemiyulyanov.uptodate.benchmarks.", ""));
+
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Map<String, String> sortedParams = new TreeMap<>();
+            params.fields().forEachRemaining(param -> sortedParams.put(param.getKey(), param.getValue().asText()));
+            key.append(sortedParams);
+        }
+        return key.toString();
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
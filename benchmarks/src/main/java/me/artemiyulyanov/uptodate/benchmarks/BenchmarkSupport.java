@@ -0,0 +1,17 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    /** Sets a field injected by Spring in the application, the components are built by hand here **/
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,107 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import me.artemiyulyanov.uptodate.jwt.JWTAuthenticationFilter;
+import me.artemiyulyanov.uptodate.jwt.JWTPrincipal;
+import me.artemiyulyanov.uptodate.jwt.JWTUtil;
+import me.artemiyulyanov.uptodate.jwt.SigningKeyRing;
+import me.artemiyulyanov.uptodate.jwt.TokenRevocationStore;
+import me.artemiyulyanov.uptodate.models.Role;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.UserStateCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing of an access token, and authentication of one request by it, with the verified tokens cache disabled
+ * (every request verifies the HMAC) and enabled (only the first one does).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTAuthenticationFilterBenchmark {
+    @Param({"0", "10000"})
+    private long cacheMaxSize;
+
+    private JWTUtil jwtUtil;
+    private JWTAuthenticationFilter filter;
+    private User user;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        // the ring is kept in memory, as a single node without Redis does
+        SigningKeyRing signingKeyRing = new SigningKeyRing();
+        BenchmarkSupport.setField(signingKeyRing, "store", "local");
+        BenchmarkSupport.setField(signingKeyRing, "rotation", Long.MAX_VALUE);
+        signingKeyRing.init();
+
+        jwtUtil = new JWTUtil();
+        BenchmarkSupport.setField(jwtUtil, "signingKeyRing", signingKeyRing);
+        BenchmarkSupport.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        BenchmarkSupport.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+
+        filter = new JWTAuthenticationFilter();
+        BenchmarkSupport.setField(filter, "jwtUtil", jwtUtil);
+        user = User.builder()
+                .id(1L)
+                .username("benchmark")
+                .roles(Set.of(Role.builder().id(1L).name("USER").build()))
+                .build();
+        UserStateCache.UserState userState = new UserStateCache.UserState(user.getId(), user.getUsername(), user.getTokenVersion());
+
+        // the state of a user is served from memory in the application as well
+        BenchmarkSupport.setField(filter, "userStateCache", new UserStateCache() {
+            @Override
+            public Optional<UserState> get(Long userId) {
+                return Optional.of(userState);
+            }
+        });
+
+        // no family is revoked, which the application answers from its Bloom filter without Redis as well
+        BenchmarkSupport.setField(filter, "tokenRevocationStore", new TokenRevocationStore() {
+            @Override
+            public boolean isFamilyRevoked(String family) {
+                return false;
+            }
+        });
+
+        accessToken = jwtUtil.generateAccessToken(user, JWTUtil.newFamily());
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken(user, JWTUtil.newFamily());
+    }
+
+    @Benchmark
+    public Optional<JWTPrincipal> parse() {
+        return jwtUtil.parse(accessToken);
+    }
+
+    @Benchmark
+    public Object doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/articles/get");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import me.artemiyulyanov.uptodate.minio.MinioMediaFile;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+
+import java.util.concurrent.TimeUnit;
+
+/** Resolving the content type of a stored file by its extension, done for every file served by /api/files/get **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinioMediaFileBenchmark {
+    @Param({"articles/1/cover.png", "users/1/icon.jpeg", "articles/1/notes.txt"})
+    private String path;
+
+    @Benchmark
+    public MediaType getMediaType() {
+        return MinioMediaFile.getMediaType(path);
+    }
+}
@@ -0,0 +1,45 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import me.artemiyulyanov.uptodate.ratelimit.LocalRateLimiter;
+import me.artemiyulyanov.uptodate.ratelimit.RateLimitKey;
+import me.artemiyulyanov.uptodate.ratelimit.RateLimitPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taking a token of the local bucket, by a single key (every thread contends on the same bucket)
+ * and by a key per thread. The bucket is large enough to never be empty, so the allowed path is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+    private LocalRateLimiter rateLimiter;
+    private RateLimitPolicy policy;
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private final String key = "ip:10.0.0." + Thread.currentThread().getId();
+    }
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new LocalRateLimiter(100_000);
+        policy = new RateLimitPolicy("benchmark", "GET", "/api/articles/search", RateLimitKey.IP, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long sharedKey() {
+        return rateLimiter.tryAcquire(policy, "ip:10.0.0.1");
+    }
+
+    @Benchmark
+    public long keyPerThread(ThreadKey threadKey) {
+        return rateLimiter.tryAcquire(policy, threadKey.key);
+    }
+}
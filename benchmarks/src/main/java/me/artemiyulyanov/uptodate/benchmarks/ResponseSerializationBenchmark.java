@@ -0,0 +1,126 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import me.artemiyulyanov.uptodate.configuration.JacksonConfig;
+import me.artemiyulyanov.uptodate.models.*;
+import me.artemiyulyanov.uptodate.web.PaginatedResponse;
+import me.artemiyulyanov.uptodate.web.ResponseWriter;
+import me.artemiyulyanov.uptodate.web.ServerResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the response envelopes: one article as returned by /api/articles/get, a page of 20 articles
+ * as returned by /api/articles/search and a page of 20 comments as returned by /api/articles/comments/get.
+ * Compared are a mapper built for every response (as mapToJson used to do), one shared reflective mapper,
+ * and ResponseWriter with the application mapper and the cached writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    @Param({"article", "articles", "comments"})
+    private String payload;
+
+    private ServerResponse<?> response;
+    private ObjectMapper sharedMapper;
+    private ResponseWriter responseWriter;
+
+    @Setup
+    public void setUp() {
+        User author = user(1L);
+        Article article = article(author);
+
+        response = switch (payload) {
+            case "article" -> ServerResponse.builder().status(200).message("The article has been retrieved successfully!").response(article).build();
+            case "articles" -> PaginatedResponse.builder().status(200).page(0).size(20).totalElements(100).totalPages(5).last(false).response(Collections.nCopies(20, article)).build();
+            default -> PaginatedResponse.builder().status(200).page(0).size(20).totalElements(20).totalPages(1).last(true).response(article.getComments()).build();
+        };
+
+        sharedMapper = new ObjectMapper();
+        sharedMapper.registerModule(new JavaTimeModule());
+
+        responseWriter = new ResponseWriter();
+        BenchmarkSupport.setField(responseWriter, "objectMapper", new JacksonConfig().objectMapper());
+    }
+
+    @Benchmark
+    public void mapperPerResponse() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.findAndRegisterModules();
+
+        objectMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void sharedMapper() throws IOException {
+        sharedMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void responseWriter() throws IOException {
+        responseWriter.write(response, OutputStream.nullOutputStream());
+    }
+
+    private static Article article(User author) {
+        Article article = new Article();
+        article.setId(1L);
+        article.setHeading("Virtual threads in production");
+        article.setDescription("What changes once the request threads stop being a scarce resource");
+        article.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(80));
+        article.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        article.setAuthor(author);
+
+        for (long i = 1; i <= 3; i++) {
+            ArticleTopic topic = ArticleTopic.of("Programming", "Программирование", "Topic " + i, "Тема " + i);
+            topic.setId(i);
+            topic.setArticles(new HashSet<>());
+            article.getTopics().add(topic);
+        }
+
+        for (long i = 1; i <= 20; i++) {
+            User user = user(i + 1);
+
+            article.getLikes().add(ArticleLike.builder().id(i).article(article).user(user).likedAt(LocalDateTime.of(2024, 5, 2, 12, 0)).build());
+            article.getViews().add(ArticleView.builder().id(i).article(article).user(user).ipAddress("10.0.0." + i).viewedAt(LocalDateTime.of(2024, 5, 2, 12, 0)).build());
+        }
+
+        for (long i = 1; i <= 20; i++) {
+            ArticleComment comment = new ArticleComment();
+            comment.setId(i);
+            comment.setArticle(article);
+            comment.setAuthor(user(i + 1));
+            comment.setContent("A comment on the article, long enough to look like a real one. ".repeat(3));
+            comment.setCreatedAt(LocalDateTime.of(2024, 5, 3, 12, 0));
+            comment.setResources(List.of("articles/1/comments/" + i + "/image.png"));
+            article.getComments().add(comment);
+        }
+
+        return article;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setIcon("users/" + id + "/icon.png");
+        user.setRoles(new HashSet<>());
+        user.setArticles(new ArrayList<>());
+        return user;
+    }
+}
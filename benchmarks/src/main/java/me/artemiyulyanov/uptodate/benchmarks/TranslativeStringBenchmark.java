@@ -0,0 +1,33 @@
+package me.artemiyulyanov.uptodate.benchmarks;
+
+import me.artemiyulyanov.uptodate.models.text.TranslativeString;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Interning a topic name, as every loaded ArticleTopic does with its name and parent **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslativeStringBenchmark {
+    private TranslativeString interned;
+
+    @Setup
+    public void setUp() {
+        interned = TranslativeString.intern(new TranslativeString("Technologies", "Технологии"));
+    }
+
+    /** A freshly loaded copy of a name already interned, the usual case **/
+    @Benchmark
+    public TranslativeString internLoaded() {
+        return TranslativeString.intern(new TranslativeString(new String("Technologies"), new String("Технологии")));
+    }
+
+    @Benchmark
+    public TranslativeString internSame() {
+        return TranslativeString.intern(interned);
+    }
+}
@@ -0,0 +1,30 @@
+// Reads the public article endpoints, each of them blocking on MySQL. Run by run.sh.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MAX_ARTICLE_ID = parseInt(__ENV.MAX_ARTICLE_ID || '100');
+const FILTERS = encodeURIComponent('{}');
+
+export const options = {
+    discardResponseBodies: true,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        articles: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '400'),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+};
+
+export default function () {
+    const id = Math.floor(Math.random() * MAX_ARTICLE_ID) + 1;
+
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/articles/get?id=${id}`, null, { tags: { name: 'get' } }],
+        ['GET', `${BASE_URL}/api/articles/search?query=a&filters=${FILTERS}`, null, { tags: { name: 'search' } }],
+    ]);
+
+    responses.forEach(response => check(response, { 'not a server error': r => r.status < 500 }));
+}
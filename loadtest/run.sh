@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Runs the same load against the app on platform threads and on virtual threads and prints both summaries.
+# Needs MySQL, Redis and MinIO of docker-compose.yml up, k6 and jq on the PATH, and JAVA_HOME pointing at JDK 21+.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=target/uptodate-0.2.1-exec.jar
+RESULTS=loadtest/results
+mkdir -p "$RESULTS"
+
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:mysql://localhost:3306/uptodate}
+export SPRING_DATASOURCE_USERNAME=${SPRING_DATASOURCE_USERNAME:-root}
+export SPRING_DATASOURCE_PASSWORD=${SPRING_DATASOURCE_PASSWORD:-}
+export CLOUD_AWS_S3_ENDPOINT=${CLOUD_AWS_S3_ENDPOINT:-http://localhost:9000}
+export CLOUD_AWS_S3_BUCKET=${CLOUD_AWS_S3_BUCKET:-photos}
+export CLOUD_AWS_S3_ACCESS_KEY=${CLOUD_AWS_S3_ACCESS_KEY:-admin}
+export CLOUD_AWS_S3_SECRET_KEY=${CLOUD_AWS_S3_SECRET_KEY:-admin123}
+# every request of the test comes from the same address
+export RATELIMIT_ENABLED=false
+
+for mode in platform virtual; do
+    virtual=false
+    [ "$mode" = virtual ] && virtual=true
+
+    SPRING_THREADS_VIRTUAL_ENABLED=$virtual "$JAVA_HOME/bin/java" -Djdk.tracePinnedThreads=short -jar "$JAR" > "$RESULTS/$mode.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null' EXIT
+
+    until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 1; done
+
+    # the first run warms up the JIT and the caches, only the second one is kept
+    k6 run --quiet -e DURATION=30s loadtest/articles.js > /dev/null
+    k6 run --quiet --summary-export "$RESULTS/$mode.json" loadtest/articles.js
+
+    kill $app
+    wait $app || true
+done
+
+printf '%-10s %12s %12s %12s\n' mode 'req/s' 'p95 ms' 'p99 ms'
+for mode in platform virtual; do
+    jq -r --arg mode "$mode" '[$mode, (.metrics.http_reqs.rate | floor), .metrics.http_req_duration["p(95)"], .metrics.http_req_duration["p(99)"]] | @tsv' "$RESULTS/$mode.json" \
+        | awk '{ printf "%-10s %12d %12.1f %12.1f\n", $1, $2, $3, $4 }'
+done
+echo "Pinned virtual threads, if any, are reported in $RESULTS/virtual.log"
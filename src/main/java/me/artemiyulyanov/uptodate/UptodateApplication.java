@@ -2,8 +2,10 @@ package me.artemiyulyanov.uptodate;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UptodateApplication {
     public static void main(String[] args) {
         SpringApplication.run(UptodateApplication.class, args);
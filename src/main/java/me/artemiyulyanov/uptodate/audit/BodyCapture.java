@@ -0,0 +1,40 @@
+package me.artemiyulyanov.uptodate.audit;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Keeps the first bytes of a body as it streams by, the rest is only counted **/
+class BodyCapture {
+    private final byte[] buffer;
+    private int length;
+    private long total;
+
+    BodyCapture(int limit) {
+        this.buffer = new byte[Math.max(0, limit)];
+    }
+
+    void write(int b) {
+        if (length < buffer.length) buffer[length++] = (byte) b;
+        total++;
+    }
+
+    void write(byte[] bytes, int offset, int count) {
+        if (count <= 0) return;
+
+        int copied = Math.min(count, buffer.length - length);
+        if (copied > 0) {
+            System.arraycopy(bytes, offset, buffer, length, copied);
+            length += copied;
+        }
+        total += count;
+    }
+
+    String toString(String encoding) {
+        if (total == 0) return null;
+
+        Charset charset = encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        String body = new String(Arrays.copyOf(buffer, length), charset);
+        return total > length ? body + "...[" + total + " bytes]" : body;
+    }
+}
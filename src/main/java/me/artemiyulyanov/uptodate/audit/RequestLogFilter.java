@@ -0,0 +1,162 @@
+package me.artemiyulyanov.uptodate.audit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.artemiyulyanov.uptodate.jwt.JWTPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Captures a sample of the requests into requests_logs. The sampling is decided before anything is captured,
+ * so the requests left out only pay for one random number. The bodies are kept up to audit.body-limit bytes
+ * as they stream by; the bodies of audit.redacted-routes (credentials) and the non-textual ones are never kept.
+ * The record is handed to RequestLogWriter without waiting, the asynchronous requests once they complete.
+ *
+ * Sampling: audit.sample-rate applies to every route, audit.sampling overrides it per route,
+ * e.g. audit.sampling=/api/admin/**=1.0,/api/articles/search=0.01
+ */
+public class RequestLogFilter extends OncePerRequestFilter {
+    private static final Set<String> REDACTED_HEADERS = Set.of("authorization", "cookie", "set-cookie");
+
+    @Autowired
+    private RequestLogWriter requestLogWriter;
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.sample-rate:0.1}")
+    private double sampleRate;
+
+    @Value("${audit.sampling:}")
+    private String sampling;
+
+    @Value("${audit.redacted-routes:/api/auth/**}")
+    private String redactedRoutes;
+
+    @Value("${audit.body-limit:4096}")
+    private int bodyLimit;
+
+    private final Map<PathPattern, Double> sampleRates = new LinkedHashMap<>();
+    private final List<PathPattern> redactedPatterns = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        for (String rule : sampling.split(",")) {
+            int separator = rule.lastIndexOf('=');
+            if (separator > 0) sampleRates.put(PathPatternParser.defaultInstance.parse(rule.substring(0, separator).trim()), Double.parseDouble(rule.substring(separator + 1).trim()));
+        }
+
+        for (String route : redactedRoutes.split(",")) {
+            if (!route.isBlank()) redactedPatterns.add(PathPatternParser.defaultInstance.parse(route.trim()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= getSampleRate(path)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean redacted = redactedPatterns.stream().anyMatch(pattern -> pattern.matches(path));
+        CapturingRequest capturingRequest = !redacted && isTextual(request.getContentType()) ? new CapturingRequest(request, bodyLimit) : null;
+        CapturingResponse capturingResponse = !redacted ? new CapturingResponse(response, bodyLimit) : null;
+
+        long startedAt = System.nanoTime();
+        Long userId = null;
+
+        try {
+            filterChain.doFilter(capturingRequest != null ? capturingRequest : request, capturingResponse != null ? capturingResponse : response);
+            userId = getUserId();
+        } finally {
+            Long authenticatedUserId = userId;
+            Runnable record = () -> requestLogWriter.submit(new RequestLogRecord(
+                    request.getMethod(),
+                    getUrl(request),
+                    getHeaders(request),
+                    capturingRequest != null ? capturingRequest.getCapturedBody() : null,
+                    capturingResponse != null ? capturingResponse.getCapturedBody() : null,
+                    response.getStatus(),
+                    (System.nanoTime() - startedAt) / 1_000_000,
+                    LocalDateTime.now(),
+                    authenticatedUserId
+            ));
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record.run();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record.run();
+            }
+        }
+    }
+
+    private double getSampleRate(PathContainer path) {
+        for (Map.Entry<PathPattern, Double> rule : sampleRates.entrySet()) {
+            if (rule.getKey().matches(path)) return rule.getValue();
+        }
+        return sampleRate;
+    }
+
+    private Long getUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof JWTPrincipal principal ? principal.getUserId() : null;
+    }
+
+    private static String getUrl(HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return queryString != null ? request.getRequestURI() + "?" + queryString : request.getRequestURI();
+    }
+
+    private static String getHeaders(HttpServletRequest request) {
+        StringBuilder headers = new StringBuilder();
+
+        for (String name : Collections.list(request.getHeaderNames())) {
+            String value = REDACTED_HEADERS.contains(name.toLowerCase()) ? "[redacted]" : request.getHeader(name);
+            headers.append(name).append(": ").append(value).append('\n');
+        }
+        return headers.toString();
+    }
+
+    static boolean isTextual(String contentType) {
+        if (contentType == null) return false;
+
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml") || type.startsWith("application/x-www-form-urlencoded");
+    }
+}
@@ -0,0 +1,17 @@
+package me.artemiyulyanov.uptodate.audit;
+
+import java.time.LocalDateTime;
+
+/** One row of requests_logs, captured by RequestLogFilter and written in batches by RequestLogWriter **/
+record RequestLogRecord(
+        String method,
+        String url,
+        String headers,
+        String requestBody,
+        String responseBody,
+        int statusCode,
+        long duration,
+        LocalDateTime timestamp,
+        Long userId
+) {
+}
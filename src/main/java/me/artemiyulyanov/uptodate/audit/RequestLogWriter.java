@@ -0,0 +1,105 @@
+package me.artemiyulyanov.uptodate.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the captured requests into requests_logs with JDBC batches. The requests only put their record into a ring buffer;
+ * once the buffer is full the new records are dropped and counted (requestlog.dropped) rather than slowing the requests down.
+ */
+@Slf4j
+@Component
+public class RequestLogWriter {
+    private static final String INSERT_QUERY = "INSERT INTO requests_logs (method, url, headers, request_body, response_body, status_code, duration, timestamp, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int SHORT_COLUMN_LENGTH = 255, LONG_COLUMN_LENGTH = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${audit.batch-size:500}")
+    private int batchSize;
+
+    private RingBuffer<RequestLogRecord> buffer;
+    private Counter droppedRecords;
+    private Counter writtenRecords;
+
+    @PostConstruct
+    public void init() {
+        buffer = new RingBuffer<>(bufferCapacity);
+
+        droppedRecords = Counter.builder("requestlog.dropped")
+                .description("The request logs dropped because the buffer was full")
+                .register(meterRegistry);
+        writtenRecords = Counter.builder("requestlog.written")
+                .description("The request logs written into the database")
+                .register(meterRegistry);
+        Gauge.builder("requestlog.buffered", buffer, RingBuffer::size)
+                .description("The request logs waiting to be written")
+                .register(meterRegistry);
+    }
+
+    public void submit(RequestLogRecord record) {
+        if (!buffer.offer(record)) droppedRecords.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${audit.flush-ms:1000}")
+    public void flush() {
+        List<RequestLogRecord> batch = new ArrayList<>(batchSize);
+
+        do {
+            batch.clear();
+            for (RequestLogRecord record; batch.size() < batchSize && (record = buffer.poll()) != null; ) batch.add(record);
+
+            if (!batch.isEmpty()) write(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void write(List<RequestLogRecord> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_QUERY, batch, batch.size(), (statement, record) -> {
+                statement.setString(1, record.method());
+                statement.setString(2, truncate(record.url(), SHORT_COLUMN_LENGTH));
+                statement.setString(3, truncate(record.headers(), LONG_COLUMN_LENGTH));
+                statement.setString(4, truncate(record.requestBody(), LONG_COLUMN_LENGTH));
+                statement.setString(5, truncate(record.responseBody(), LONG_COLUMN_LENGTH));
+                statement.setInt(6, record.statusCode());
+                statement.setLong(7, record.duration());
+                statement.setTimestamp(8, Timestamp.valueOf(record.timestamp()));
+                if (record.userId() != null) statement.setLong(9, record.userId()); else statement.setNull(9, Types.BIGINT);
+            });
+            writtenRecords.increment(batch.size());
+        } catch (RuntimeException e) {
+            droppedRecords.increment(batch.size());
+            log.warn("Unable to write {} request logs", batch.size(), e);
+        }
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+}
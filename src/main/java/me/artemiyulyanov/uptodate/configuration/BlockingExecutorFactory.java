@@ -0,0 +1,127 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Creates the executors of the calls blocking on I/O (the S3 uploads), see ThreadingConfig. Both kinds run at most
+ * concurrency tasks at once and let at most queueCapacity more wait, the caller runs the task itself beyond that.
+ *
+ * Platform threads are pooled. Virtual threads are not: every task gets a new one, and a semaphore bounds how many of them
+ * run the task at once, the others wait parked on it.
+ */
+public class BlockingExecutorFactory {
+    private final boolean virtualThreads;
+
+    public BlockingExecutorFactory(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public ExecutorService newExecutor(String name, int concurrency, int queueCapacity) {
+        if (virtualThreads) {
+            return bound(ThreadingConfig.newThreadPerTaskExecutor(ThreadingConfig.newVirtualThreadFactory(name + "-")), concurrency, queueCapacity);
+        }
+
+        return new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Executors.defaultThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Never runs the task on the caller, the tasks beyond concurrency wait for their turn instead: for the submitters
+     * which must not block, like the Netty threads of the S3 client subscribing to a request body.
+     */
+    public ExecutorService newQueueingExecutor(String name, int concurrency) {
+        if (virtualThreads) {
+            return bound(ThreadingConfig.newThreadPerTaskExecutor(ThreadingConfig.newVirtualThreadFactory(name + "-")), concurrency, Integer.MAX_VALUE - concurrency);
+        }
+
+        return new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                Executors.defaultThreadFactory()
+        );
+    }
+
+    /** Bounds an executor starting a thread per task **/
+    static ExecutorService bound(ExecutorService threadPerTaskExecutor, int concurrency, int queueCapacity) {
+        return new BoundedExecutor(threadPerTaskExecutor, concurrency, queueCapacity);
+    }
+
+    private static final class BoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService threadPerTaskExecutor;
+
+        /** The tasks running **/
+        private final Semaphore running;
+
+        /** The tasks running or waiting to run **/
+        private final Semaphore admitted;
+
+        private BoundedExecutor(ExecutorService threadPerTaskExecutor, int concurrency, int queueCapacity) {
+            this.threadPerTaskExecutor = threadPerTaskExecutor;
+            this.running = new Semaphore(concurrency);
+            this.admitted = new Semaphore(concurrency + queueCapacity);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            // the caller runs the task like with CallerRunsPolicy, which slows down whoever is submitting too fast
+            if (!admitted.tryAcquire()) {
+                if (!isShutdown()) task.run();
+                return;
+            }
+
+            try {
+                threadPerTaskExecutor.execute(() -> {
+                    try {
+                        running.acquireUninterruptibly();
+                        try {
+                            task.run();
+                        } finally {
+                            running.release();
+                        }
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            threadPerTaskExecutor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return threadPerTaskExecutor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return threadPerTaskExecutor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return threadPerTaskExecutor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return threadPerTaskExecutor.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The second-level cache of Hibernate, kept in Caffeine through JCache. Every region is declared here with its size
+ * and TTL, and a region missing from this list fails the startup instead of being created unbounded.
+ *
+ * The cached entities are only written through Hibernate, which updates their entries on commit (READ_WRITE). The cache
+ * is local to each node: the users changed by another node are evicted once its broadcast arrives (see UserStateCache),
+ * with the users-by-username query region, and the TTLs only bound the staleness of a missed broadcast. The hits and misses are exposed per region as cache.gets{cache, result}.
+ *
+ * Each application context has a cache manager of its own, closed with the context. The default manager of the provider
+ * is shared by the whole JVM, so a second or restarted context would find the regions already created.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    public static final String TOPICS_REGION = "topics";
+    public static final String ROLES_REGION = "roles";
+    public static final String USERS_REGION = "users";
+    public static final String USER_ROLES_REGION = "users.roles";
+
+    /** The users found by username, in a query region of their own so that a changed user does not flush the other queries **/
+    public static final String USERS_BY_USERNAME_REGION = "users-by-username";
+
+    /** The results of the queries marked as cacheable, dropped whenever one of their tables is written **/
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    /** When each table has been written last, must neither expire nor be evicted **/
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${hibernate.cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${hibernate.cache.users.ttl-ms:60000}")
+    private long usersTtl;
+
+    @Value("${hibernate.cache.queries.max-size:1000}")
+    private long queriesMaxSize;
+
+    @Value("${hibernate.cache.queries.ttl-ms:60000}")
+    private long queriesTtl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry meterRegistry) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("uptodate:hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        // the catalogs only change on a deployment
+        createRegion(cacheManager, meterRegistry, TOPICS_REGION, 1000, TimeUnit.HOURS.toMillis(1));
+        createRegion(cacheManager, meterRegistry, ROLES_REGION, 100, TimeUnit.HOURS.toMillis(1));
+
+        createRegion(cacheManager, meterRegistry, USERS_REGION, usersMaxSize, usersTtl);
+        createRegion(cacheManager, meterRegistry, USER_ROLES_REGION, usersMaxSize, usersTtl);
+        createRegion(cacheManager, meterRegistry, USERS_BY_USERNAME_REGION, usersMaxSize, usersTtl);
+        createRegion(cacheManager, meterRegistry, QUERY_RESULTS_REGION, queriesMaxSize, queriesTtl);
+        createRegion(cacheManager, meterRegistry, UPDATE_TIMESTAMPS_REGION, -1, -1);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    /** A negative size or TTL leaves the region unbounded **/
+    private static void createRegion(CacheManager cacheManager, MeterRegistry meterRegistry, String name, long maxSize, long ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maxSize < 0 ? OptionalLong.empty() : OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(ttl < 0 ? OptionalLong.empty() : OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttl)));
+        configuration.setStatisticsEnabled(true);
+
+        JCacheMetrics.monitor(meterRegistry, cacheManager.createCache(name, configuration));
+    }
+}
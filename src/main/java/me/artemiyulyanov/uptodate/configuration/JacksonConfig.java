@@ -0,0 +1,24 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class JacksonConfig {
+    /** The one mapper of the application, shared by the responses, the converters and the services **/
+    @Bean
+    @Primary
+    public ObjectMapper objectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.findAndRegisterModules();
+
+        // the properties are read through generated lambdas instead of reflection
+        objectMapper.registerModule(new BlackbirdModule());
+        return objectMapper;
+    }
+}
@@ -0,0 +1,27 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.artemiyulyanov.uptodate.metrics.StatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The meters are exposed at /actuator/prometheus. The Redis commands are timed by Spring Boot itself
+ * (lettuce.command.completion/firstresponse, tagged by the command type), the HTTP requests by http.server.requests.
+ */
+@Configuration
+public class MetricsConfig {
+    /** Makes the @Timed annotations work on any bean, not only on the controllers **/
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+}
@@ -0,0 +1,75 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.artemiyulyanov.uptodate.ratelimit.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+/**
+ * The rate limits of the expensive routes: BCrypt on login and registration, SMTP on the verification codes,
+ * LIKE scans on search and S3 PUTs on the uploads. Every limit can be tuned with ratelimit.{name}.capacity
+ * and ratelimit.{name}.per-minute. The policies sharing a name share the bucket.
+ */
+@Configuration
+public class RateLimitConfig {
+    @Autowired
+    private Environment environment;
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    /** local keeps the buckets on the node, redis shares them across the cluster **/
+    @Value("${ratelimit.mode:local}")
+    private String mode;
+
+    @Value("${ratelimit.max-buckets:100000}")
+    private long maxBuckets;
+
+    /** The auth bodies the EMAIL policies read are a few fields of JSON **/
+    @Value("${ratelimit.max-body-bytes:16384}")
+    private int maxBodyBytes;
+
+    @Bean
+    public RateLimiter rateLimiter(StringRedisTemplate stringRedisTemplate) {
+        LocalRateLimiter localRateLimiter = new LocalRateLimiter(maxBuckets);
+        return mode.equalsIgnoreCase("redis") ? new RedisRateLimiter(stringRedisTemplate, localRateLimiter) : localRateLimiter;
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        return new RateLimitFilter(rateLimiter, enabled ? getPolicies() : List.of(), objectMapper, maxBodyBytes);
+    }
+
+    private List<RateLimitPolicy> getPolicies() {
+        return List.of(
+                policy("login", "POST", "/api/auth/login", RateLimitKey.IP, 10, 10),
+                policy("register", "POST", "/api/auth/register", RateLimitKey.IP, 5, 5),
+                policy("register-email", "POST", "/api/auth/register", RateLimitKey.EMAIL, 3, 1),
+                policy("verify-code", "POST", "/api/auth/register/verify-code", RateLimitKey.EMAIL, 5, 5),
+                policy("search", "GET", "/api/articles/search", RateLimitKey.USER, 30, 60),
+                policy("upload", "POST", "/api/files/**", RateLimitKey.USER, 20, 20),
+                policy("upload", "POST", "/api/account/icon/upload", RateLimitKey.USER, 20, 20),
+                policy("write", "POST", "/api/articles/**", RateLimitKey.USER, 30, 30),
+                policy("write", "PUT", "/api/articles/**", RateLimitKey.USER, 30, 30),
+                policy("write", "DELETE", "/api/articles/**", RateLimitKey.USER, 30, 30),
+                policy("write", "PUT", "/api/account/**", RateLimitKey.USER, 30, 30)
+        );
+    }
+
+    private RateLimitPolicy policy(String name, String method, String pattern, RateLimitKey key, int capacity, int perMinute) {
+        return new RateLimitPolicy(
+                name,
+                method,
+                pattern,
+                key,
+                environment.getProperty("ratelimit." + name + ".capacity", Integer.class, capacity),
+                environment.getProperty("ratelimit." + name + ".per-minute", Integer.class, perMinute)
+        );
+    }
+}
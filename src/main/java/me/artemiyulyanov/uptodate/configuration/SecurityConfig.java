@@ -1,8 +1,15 @@
 package me.artemiyulyanov.uptodate.configuration;
 
+import jakarta.servlet.DispatcherType;
+import me.artemiyulyanov.uptodate.audit.RequestLogFilter;
 import me.artemiyulyanov.uptodate.jwt.JWTAuthenticationFilter;
+import me.artemiyulyanov.uptodate.ratelimit.RateLimitFilter;
 import me.artemiyulyanov.uptodate.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
@@ -29,13 +36,19 @@ public class SecurityConfig {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .cors(AbstractHttpConfigurer::disable)
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/swagger-ui", "/v3/api-docs", "/api/users/get", "/api/articles/retrieve", "/api/articles/get", "/api/articles/comments/get", "/api/articles/search", "/api/articles/topics/**", "/api/files/get").permitAll()
+                        // the async dispatch only writes out the result of a request which has already been authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+                        .requestMatchers("/swagger-ui", "/v3/api-docs", "/api/users/get", "/api/articles/retrieve", "/api/articles/get", "/api/articles/comments/get", "/api/articles/search", "/api/articles/topics/**", "/api/files/get", "/api/files/presigned/get").permitAll()
                         .requestMatchers("/api/auth/**").anonymous()
                         .requestMatchers("/api/auth/refresh").authenticated()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -44,7 +57,9 @@ public class SecurityConfig {
                 )
                 .sessionManagement(configurer -> configurer.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .exceptionHandling(handlingCustomizer -> handlingCustomizer.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(requestLogFilter(), JWTAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, RequestLogFilter.class);
 
         return http.build();
     }
@@ -55,9 +70,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider daoAuthenticationProvider() {
+    public DaoAuthenticationProvider daoAuthenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
         daoAuthenticationProvider.setUserDetailsService(userService);
         return daoAuthenticationProvider;
     }
@@ -68,7 +83,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public RequestLogFilter requestLogFilter() {
+        return new RequestLogFilter();
+    }
+
+    /**
+     * Raising the strength makes the stored hashes be upgraded on the next login of each user.
+     * Static, since UserService already hashes while seeding an empty database, before this configuration is ready
+     **/
+    @Bean
+    public static PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int bcryptStrength) {
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 }
\ No newline at end of file
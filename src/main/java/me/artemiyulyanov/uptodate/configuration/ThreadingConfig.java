@@ -0,0 +1,70 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * With spring.threads.virtual.enabled=true (JDK 21+) every request is handled on its own virtual thread, and the executors
+ * blocking on I/O (the S3 uploads) start a virtual thread per task, see BlockingExecutorFactory. Their concurrency still bounds
+ * how many calls run at once. The password hashing stays on platform threads, since it is CPU-bound. So do the mail deliveries,
+ * since Jakarta Mail sends under a monitor and would pin the carrier thread for the whole SMTP exchange.
+ *
+ * The project is compiled for Java 17, so the virtual threads are created reflectively.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /** Tomcat does not shut down an executor it has been given **/
+    private ExecutorService requestExecutor;
+
+    @Bean
+    public BlockingExecutorFactory blockingExecutorFactory() {
+        return new BlockingExecutorFactory(virtualThreadsEnabled);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        requestExecutor = newThreadPerTaskExecutor(newVirtualThreadFactory("tomcat-handler-"));
+        log.info("Handling the requests on virtual threads");
+
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (requestExecutor != null) requestExecutor.shutdown();
+    }
+
+    static ThreadFactory newVirtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The virtual threads need JDK 21 or newer, running on " + Runtime.version(), e);
+        }
+    }
+
+    static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The virtual threads need JDK 21 or newer, running on " + Runtime.version(), e);
+        }
+    }
+}
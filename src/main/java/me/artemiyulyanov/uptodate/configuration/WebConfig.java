@@ -0,0 +1,32 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.artemiyulyanov.uptodate.metrics.StatementCountInterceptor;
+import me.artemiyulyanov.uptodate.web.ResponseWriter;
+import me.artemiyulyanov.uptodate.web.ServerResponseHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    @Autowired
+    private ResponseWriter responseWriter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ServerResponseHttpMessageConverter(responseWriter));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementCountInterceptor(meterRegistry));
+    }
+}
@@ -1,10 +1,9 @@
 package me.artemiyulyanov.uptodate.controllers;
 
 import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.jwt.AuthenticatedUser;
 import me.artemiyulyanov.uptodate.models.User;
-import me.artemiyulyanov.uptodate.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Optional;
@@ -13,13 +12,9 @@ import java.util.Optional;
 @Slf4j
 public abstract class AuthenticatedController {
     @Autowired
-    private UserService userService;
+    private AuthenticatedUser authenticatedUser;
 
     protected Optional<User> getAuthorizedUser() {
-        try {
-            return userService.findByUsername(SecurityContextHolder.getContext().getAuthentication().getName());
-        } catch (NullPointerException e) {
-            return Optional.empty();
-        }
+        return authenticatedUser.get();
     }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/account")
@@ -62,7 +63,7 @@ public class AccountController extends AuthenticatedController {
     }
 
     @PutMapping("/edit")
-    public ResponseEntity<?> editAccount(
+    public CompletableFuture<ResponseEntity<?>> editAccount(
             @RequestParam String username,
             @RequestParam String firstName,
             @RequestParam String lastName,
@@ -70,24 +71,27 @@ public class AccountController extends AuthenticatedController {
         User user = getAuthorizedUser().get();
 
         if (!username.equals(user.getUsername()) && userService.existsByUsername(username)) {
-            return requestService.executeApiResponse(HttpStatus.CONFLICT, "The username is already taken!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.CONFLICT, "The username is already taken!"));
         }
 
-        userService.editUser(user.getId(), username, firstName, lastName, icon);
-        return requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!");
+        return userService.editUser(user.getId(), username, firstName, lastName, icon)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!"))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "The changes have been applied, but the icon could not be uploaded!"));
     }
 
     @PostMapping("/icon/upload")
-    public ResponseEntity<?> uploadIcon(@RequestParam(value = "icon") MultipartFile icon) {
+    public CompletableFuture<ResponseEntity<?>> uploadIcon(@RequestParam(value = "icon") MultipartFile icon) {
         User user = getAuthorizedUser().get();
         System.out.println("test");
 
         String iconObjectKey = userService.getResourceManager().getResourceFolder(user) + File.separator + icon.getOriginalFilename();
-        userService.getResourceManager().updateResources(user, List.of(icon));
-
-        user.setIcon(iconObjectKey);
-        userService.save(user);
-
-        return requestService.executeApiResponse(HttpStatus.OK, "The icon has been updated successfully!");
+        return userService.getResourceManager().updateResources(user, List.of(icon))
+                .<ResponseEntity<?>>thenApply(ignored -> {
+                    user.setIcon(iconObjectKey);
+                    userService.save(user);
+
+                    return requestService.executeApiResponse(HttpStatus.OK, "The icon has been updated successfully!");
+                })
+                .exceptionally(e -> requestService.executeFailureResponse(e, "Unable to upload the resources!"));
     }
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/articles/comments")
@@ -81,7 +82,7 @@ public class ArticleCommentController extends AuthenticatedController {
     }
 
     @PostMapping("/create")
-    public ResponseEntity<?> createComment(
+    public CompletableFuture<ResponseEntity<?>> createComment(
             @RequestParam String content,
             @RequestParam Long articleId,
             @RequestParam(value = "resources", required = false) List<MultipartFile> resources) {
@@ -89,7 +90,7 @@ public class ArticleCommentController extends AuthenticatedController {
         Optional<Article> wrappedArticle = articleService.findById(articleId);
 
         if (wrappedArticle.isEmpty()) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The article is undefined");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The article is undefined"));
         }
 
         ArticleComment comment = ArticleComment.builder()
@@ -100,13 +101,16 @@ public class ArticleCommentController extends AuthenticatedController {
                 .build();
         articleCommentService.save(comment);
 
-        articleCommentService.getResourceManager().uploadResources(comment, resources);
-
-        return requestService.executeApiResponse(HttpStatus.OK, "The comment has been created!");
+        return articleCommentService.getResourceManager().uploadResources(comment, resources)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The comment has been created!"))
+                .exceptionally(e -> {
+                    articleCommentService.delete(comment);
+                    return requestService.executeFailureResponse(e, "Unable to upload the resources!");
+                });
     }
 
     @PutMapping("/edit")
-    public ResponseEntity<?> editComment(
+    public CompletableFuture<ResponseEntity<?>> editComment(
             @RequestParam Long id,
             @RequestParam String content,
             @RequestParam(value = "resources", required = false) List<MultipartFile> resources) {
@@ -114,16 +118,17 @@ public class ArticleCommentController extends AuthenticatedController {
         Optional<ArticleComment> wrappedArticleComment = articleCommentService.findById(id);
 
         if (wrappedArticleComment.isEmpty()) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Comment is undefined!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Comment is undefined!"));
         }
 
         ArticleComment newArticleComment = wrappedArticleComment.get();
         if (!newArticleComment.getAuthor().getId().equals(wrappedUser.get().getId())) {
-            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the changes!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the changes!"));
         }
 
-        articleCommentService.editComment(id, content, resources);
-        return requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!");
+        return articleCommentService.editComment(id, content, resources)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!"))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "Unable to upload the resources!"));
     }
 
     @PostMapping("/like")
@@ -143,20 +148,21 @@ public class ArticleCommentController extends AuthenticatedController {
     }
 
     @DeleteMapping("/delete")
-    public ResponseEntity<?> deleteComment(@RequestParam Long id) {
+    public CompletableFuture<ResponseEntity<?>> deleteComment(@RequestParam Long id) {
         Optional<User> wrappedUser = getAuthorizedUser();
         Optional<ArticleComment> wrappedArticleComment = articleCommentService.findById(id);
 
         if (wrappedArticleComment.isEmpty()) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Comment is undefined!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Comment is undefined!"));
         }
 
         ArticleComment comment = wrappedArticleComment.get();
         if (!comment.getAuthor().getId().equals(wrappedUser.get().getId())) {
-            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the removal!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the removal!"));
         }
 
-        articleCommentService.delete(comment);
-        return requestService.executeApiResponse(HttpStatus.OK, "The removal has been processed successfully!");
+        return articleCommentService.delete(comment)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The removal has been processed successfully!"))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "The comment has been removed, but its resources are still to be cleaned up!"));
     }
 }
\ No newline at end of file
@@ -3,12 +3,15 @@ package me.artemiyulyanov.uptodate.controllers.api.articles;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import me.artemiyulyanov.uptodate.controllers.AuthenticatedController;
 import me.artemiyulyanov.uptodate.controllers.api.articles.filters.ArticleFilter;
@@ -42,6 +45,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -70,6 +74,18 @@ public class ArticleController extends AuthenticatedController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer searchFiltersTimer;
+    private Timer searchQueryTimer;
+
+    @PostConstruct
+    public void init() {
+        searchFiltersTimer = searchTimer("article.search.filters");
+        searchQueryTimer = searchTimer("article.search.query");
+    }
+
     @GetMapping(value = "/get", params = {"id"})
     public ResponseEntity<?> getArticleById(@RequestParam Long id) {
         Optional<Article> wrappedArticle = articleService.findById(id);
@@ -135,12 +151,8 @@ public class ArticleController extends AuthenticatedController {
             pageableObject = PageableObject.of(Article.class, page - 1, ARTICLE_PAGE_SIZE);
         }
 
-        Page<Article> paginatedArticles = articleService.findAllArticles(
-                ArticleFilter.applyFilters(
-                        pageableObject,
-                        filters
-                )
-        );
+        PageableObject<Article> filteredPageableObject = searchFiltersTimer.record(() -> ArticleFilter.applyFilters(pageableObject, filters));
+        Page<Article> paginatedArticles = searchQueryTimer.record(() -> articleService.findAllArticles(filteredPageableObject));
 
         return requestService.executePaginatedEntityResponse(HttpStatus.OK, paginatedArticles);
     }
@@ -159,7 +171,7 @@ public class ArticleController extends AuthenticatedController {
     }
 
     @PostMapping("/create")
-    public ResponseEntity<?> createArticle(
+    public CompletableFuture<ResponseEntity<?>> createArticle(
             @RequestParam String heading,
             @RequestParam String description,
             @RequestParam String content,
@@ -183,15 +195,17 @@ public class ArticleController extends AuthenticatedController {
                         .build();
 
         articleService.save(article);
-        if (resources != null) {
-            articleService.getResourceManager().uploadResources(article, resources);
-        }
 
-        return requestService.executeApiResponse(HttpStatus.OK, "The article has been created!");
+        return articleService.getResourceManager().uploadResources(article, resources)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The article has been created!"))
+                .exceptionally(e -> {
+                    articleService.delete(article);
+                    return requestService.executeFailureResponse(e, "Unable to upload the resources!");
+                });
     }
 
     @PutMapping("/edit")
-    public ResponseEntity<?> editArticle(
+    public CompletableFuture<ResponseEntity<?>> editArticle(
             @RequestParam Long id,
             @RequestParam String heading,
             @RequestParam String description,
@@ -202,20 +216,21 @@ public class ArticleController extends AuthenticatedController {
         Optional<Article> wrappedArticle = articleService.findById(id);
 
         if (wrappedArticle.isEmpty()) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Article is undefined!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Article is undefined!"));
         }
 
         Article newArticle = wrappedArticle.get();
         if (!newArticle.getAuthor().getId().equals(wrappedUser.get().getId())) {
-            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the changes!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the changes!"));
         }
 
-        articleService.editArticle(id, heading, description, content, topicsNames, newFiles);
-        return requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!");
+        return articleService.editArticle(id, heading, description, content, topicsNames, newFiles)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The changes have been applied successfully!"))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "Unable to upload the resources!"));
     }
 
     @DeleteMapping("/delete")
-    public ResponseEntity<?> deleteArticle(@RequestParam Long id) {
+    public CompletableFuture<ResponseEntity<?>> deleteArticle(@RequestParam Long id) {
         Optional<User> wrappedUser = getAuthorizedUser();
         Optional<Article> wrappedArticle = articleService.findById(id);
 
@@ -224,15 +239,22 @@ public class ArticleController extends AuthenticatedController {
 //        }
 
         if (wrappedArticle.isEmpty()) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Article is undefined!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Article is undefined!"));
         }
 
         Article article = wrappedArticle.get();
         if (!article.getAuthor().getId().equals(wrappedUser.get().getId())) {
-            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the removal!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to proceed the removal!"));
         }
 
-        articleService.delete(article);
-        return requestService.executeApiResponse(HttpStatus.OK, "The removal has been processed successfully!");
+        return articleService.delete(article)
+                .<ResponseEntity<?>>thenApply(ignored -> requestService.executeApiResponse(HttpStatus.OK, "The removal has been processed successfully!"))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "The article has been removed, but its resources are still to be cleaned up!"));
+    }
+
+    private Timer searchTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
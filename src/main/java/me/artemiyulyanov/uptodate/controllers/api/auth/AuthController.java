@@ -1,33 +1,39 @@
 package me.artemiyulyanov.uptodate.controllers.api.auth;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import me.artemiyulyanov.uptodate.configuration.BlockingExecutorFactory;
 import me.artemiyulyanov.uptodate.controllers.AuthenticatedController;
 import me.artemiyulyanov.uptodate.controllers.api.auth.requests.LoginRequest;
 import me.artemiyulyanov.uptodate.controllers.api.auth.requests.RegisterRequest;
 import me.artemiyulyanov.uptodate.controllers.api.auth.requests.VerifyCodeRequest;
 import me.artemiyulyanov.uptodate.controllers.api.auth.responses.TokenResponse;
+import me.artemiyulyanov.uptodate.jwt.JWTPrincipal;
 import me.artemiyulyanov.uptodate.jwt.JWTUtil;
-import me.artemiyulyanov.uptodate.mail.EmailVerificationCode;
+import me.artemiyulyanov.uptodate.jwt.TokenRevocationStore;
 import me.artemiyulyanov.uptodate.mail.MailService;
 import me.artemiyulyanov.uptodate.models.User;
 import me.artemiyulyanov.uptodate.web.RequestService;
 import me.artemiyulyanov.uptodate.web.ServerResponse;
+import me.artemiyulyanov.uptodate.services.PasswordHashingService;
 import me.artemiyulyanov.uptodate.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -45,13 +51,32 @@ public class AuthController extends AuthenticatedController {
     private MailService mailService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private BlockingExecutorFactory blockingExecutorFactory;
+
+    @Value("${auth.register.concurrency:8}")
+    private int registerConcurrency;
+
+    /** Issues the verification codes once the password is hashed, so the I/O does not hold the bounded hashing pool **/
+    private ExecutorService registerExecutor;
+
+    @PostConstruct
+    public void init() {
+        registerExecutor = blockingExecutorFactory.newQueueingExecutor("register", registerConcurrency);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        registerExecutor.shutdown();
+    }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, Model model) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest, Model model) {
 //        if (isUserAuthorized()) {
 //            return requestService.executeApiResponse(HttpStatus.UNAUTHORIZED, 11, "User is already authorized!");
 //        }
@@ -59,47 +84,45 @@ public class AuthController extends AuthenticatedController {
         String username = loginRequest.getUsername();
         String password = loginRequest.getPassword();
 
-        if (!userService.isUserVaild(username, password)) {
-            return requestService.executeApiResponse(HttpStatus.UNAUTHORIZED, "User is invalid!");
-        }
-
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
-
-        Optional<User> wrappedUser = userService.findByUsername(username);
-        UserDetails userDetails = userService.loadUserByUsername(username);
-
-        String accessToken = jwtUtil.generateAccessToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
-
-        return requestService.executeCustomResponse(
-                TokenResponse.builder()
-                    .status(HttpStatus.ACCEPTED.value())
-                    .access_token(accessToken)
-                    .refresh_token(refreshToken)
-                    .build()
-        );
+        return passwordHashingService.authenticate(userService.findByUsername(username), password)
+                .<ResponseEntity<?>>thenApply(wrappedUser -> {
+                    if (wrappedUser.isEmpty()) {
+                        return requestService.executeApiResponse(HttpStatus.UNAUTHORIZED, "User is invalid!");
+                    }
+
+                    String family = JWTUtil.newFamily();
+                    String accessToken = jwtUtil.generateAccessToken(wrappedUser.get(), family);
+                    String refreshToken = jwtUtil.generateRefreshToken(wrappedUser.get(), family);
+
+                    return requestService.executeCustomResponse(
+                            TokenResponse.builder()
+                                .status(HttpStatus.ACCEPTED.value())
+                                .access_token(accessToken)
+                                .refresh_token(refreshToken)
+                                .build()
+                    );
+                })
+                .exceptionally(this::executeHashingFailure);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest, Model model) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest registerRequest, Model model) {
         String username = registerRequest.getUsername();
         String email = registerRequest.getEmail();
         String password = registerRequest.getPassword();
 
         if (userService.userExists(username, email)) {
-            return requestService.executeApiResponse(HttpStatus.CONFLICT, "User already exists!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.CONFLICT, "User already exists!"));
         }
 
-        registerRequest.setPassword(passwordEncoder.encode(password));
-        EmailVerificationCode emailVerificationCode = mailService.sendCode(email, List.of(
-                EmailVerificationCode.Credential
-                        .builder()
-                        .key("registerRequest")
-                        .value(registerRequest)
-                        .build()
-        ));
+        return passwordHashingService.encode(password)
+                .<ResponseEntity<?>>thenApplyAsync(encodedPassword -> {
+                    registerRequest.setPassword(encodedPassword);
+                    mailService.sendCode(email, registerRequest.toBytes());
 
-        return requestService.executeApiResponse(HttpStatus.OK, "The request has been proceeded successfully!");
+                    return requestService.executeApiResponse(HttpStatus.OK, "The request has been proceeded successfully!");
+                }, registerExecutor)
+                .exceptionally(this::executeHashingFailure);
     }
 
     @PostMapping("/register/verify-code")
@@ -107,12 +130,12 @@ public class AuthController extends AuthenticatedController {
         String email = verifyCodeRequest.getEmail();
         String code = verifyCodeRequest.getCode();
 
-        if (!mailService.validateCode(email, code)) {
+        Optional<byte[]> payload = mailService.enterCode(email, code);
+        if (payload.isEmpty()) {
             return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The code is invalid!");
         }
 
-        EmailVerificationCode emailVerificationCode = mailService.getVerificationCode(email);
-        RegisterRequest registerRequest = emailVerificationCode.getCredential("registerRequest").getValue(RegisterRequest.class);
+        RegisterRequest registerRequest = RegisterRequest.fromBytes(payload.get());
 
         User user = User.builder()
                 .username(registerRequest.getUsername())
@@ -122,12 +145,11 @@ public class AuthController extends AuthenticatedController {
                 .lastName(registerRequest.getLastName())
                 .build();
 
-        mailService.enterCode(email, code);
         userService.createNewUser(user);
 
-        UserDetails userDetails = userService.loadUserByUsername(user.getUsername());
-        String accessToken = jwtUtil.generateAccessToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        String family = JWTUtil.newFamily();
+        String accessToken = jwtUtil.generateAccessToken(user, family);
+        String refreshToken = jwtUtil.generateRefreshToken(user, family);
 
         return requestService.executeCustomResponse(
                 TokenResponse.builder()
@@ -138,21 +160,60 @@ public class AuthController extends AuthenticatedController {
         );
     }
 
+    /** Rotates the refresh token: the one presented is used up, and presenting it again revokes the whole family **/
     @GetMapping("/refresh")
     public ResponseEntity<?> refresh(@RequestParam String refreshToken) {
-        if (!jwtUtil.isTokenValid(refreshToken) || !jwtUtil.extractScope(refreshToken).equalsIgnoreCase("REFRESH")) {
+        Optional<JWTPrincipal> principal = jwtUtil.parse(refreshToken)
+                .filter(parsedPrincipal -> parsedPrincipal.hasScope("REFRESH"))
+                .filter(parsedPrincipal -> !tokenRevocationStore.isFamilyRevoked(parsedPrincipal.getFamily()));
+
+        if (principal.isEmpty()) {
+            return requestService.executeApiResponse(HttpStatus.CONFLICT, "Refresh token is invalid!");
+        }
+
+        Optional<User> wrappedUser = Optional.ofNullable(principal.get().getUserId()).flatMap(userService::findById)
+                .filter(user -> user.getTokenVersion() == principal.get().getTokenVersion());
+
+        if (wrappedUser.isEmpty()) {
             return requestService.executeApiResponse(HttpStatus.CONFLICT, "Refresh token is invalid!");
         }
 
-        String username = jwtUtil.extractUsername(refreshToken);
-        UserDetails userDetails = userService.loadUserByUsername(username);
+        String family = principal.get().getFamily();
+        if (!tokenRevocationStore.consume(principal.get())) {
+            tokenRevocationStore.revokeFamily(family);
+            return requestService.executeApiResponse(HttpStatus.CONFLICT, "Refresh token has already been used!");
+        }
 
-        String accessToken = jwtUtil.generateAccessToken(userDetails);
+        String accessToken = jwtUtil.generateAccessToken(wrappedUser.get(), family);
+        String newRefreshToken = jwtUtil.generateRefreshToken(wrappedUser.get(), family);
         return requestService.executeCustomResponse(
                 TokenResponse.builder()
                         .status(HttpStatus.OK.value())
                         .access_token(accessToken)
+                        .refresh_token(newRefreshToken)
                         .build()
         );
     }
+
+    /** Revokes the refresh token and every access token issued within the same login **/
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestParam String refreshToken) {
+        Optional<JWTPrincipal> principal = jwtUtil.parse(refreshToken).filter(parsedPrincipal -> parsedPrincipal.hasScope("REFRESH"));
+
+        if (principal.isEmpty() || principal.get().getFamily() == null) {
+            return requestService.executeApiResponse(HttpStatus.CONFLICT, "Refresh token is invalid!");
+        }
+
+        tokenRevocationStore.revokeFamily(principal.get().getFamily());
+        return requestService.executeApiResponse(HttpStatus.OK, "The session has been closed successfully!");
+    }
+
+    private ResponseEntity<?> executeHashingFailure(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+
+        if (e instanceof RejectedExecutionException) {
+            return requestService.executeApiResponse(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy, try again later!");
+        }
+        return requestService.executeApiResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to proceed the request!");
+    }
 }
\ No newline at end of file
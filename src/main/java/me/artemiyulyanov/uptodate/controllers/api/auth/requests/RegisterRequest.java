@@ -5,10 +5,45 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.io.*;
+
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class RegisterRequest {
+    private static final byte FORMAT_VERSION = 1;
+
     private String username, email, password, firstName, lastName;
-}
\ No newline at end of file
+
+    /** The compact binary form kept with the verification code until the registration is completed **/
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(FORMAT_VERSION);
+            for (String field : new String[] {username, email, password, firstName, lastName}) {
+                output.writeBoolean(field != null);
+                if (field != null) output.writeUTF(field);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static RegisterRequest fromBytes(byte[] bytes) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = input.readByte();
+            if (version != FORMAT_VERSION) throw new IllegalArgumentException("Unknown register request format " + version);
+
+            String[] fields = new String[5];
+            for (int i = 0; i < fields.length; i++) fields[i] = input.readBoolean() ? input.readUTF() : null;
+
+            return new RegisterRequest(fields[0], fields[1], fields[2], fields[3], fields[4]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,8 +2,9 @@ package me.artemiyulyanov.uptodate.controllers.api.files;
 
 import me.artemiyulyanov.uptodate.controllers.AuthenticatedController;
 import me.artemiyulyanov.uptodate.controllers.api.files.responses.FileUploadResponse;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioMediaFile;
-import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.models.User;
 import me.artemiyulyanov.uptodate.web.RequestService;
 import me.artemiyulyanov.uptodate.web.ServerResponse;
@@ -15,56 +16,64 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
-import java.io.InputStream;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/files")
 public class ImageController extends AuthenticatedController {
     @Autowired
-    private MinioService minioService;
+    private UploadEngine uploadEngine;
+
+    @Autowired
+    private AsyncMinioService asyncMinioService;
 
     @Autowired
     private RequestService requestService;
 
     @GetMapping("/get")
-    public ResponseEntity<?> getImage(@RequestParam String path, Model model) {
-        MinioMediaFile mediaFile = minioService.getMediaFile(path);
+    public CompletableFuture<ResponseEntity<?>> getImage(@RequestParam String path, Model model) {
+        return asyncMinioService.getMediaFile(path)
+                .<ResponseEntity<?>>thenApply(wrappedMediaFile -> {
+                    if (wrappedMediaFile.isEmpty()) {
+                        return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Unable to return image!");
+                    }
 
-        try (InputStream inputStream = mediaFile.getInputStream()) {
-            return requestService.executeMediaResponse(HttpStatus.OK, mediaFile.getMediaType(), inputStream.readAllBytes());
-        } catch (Exception e) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Unable to return image!");
-        }
+                    MinioMediaFile mediaFile = wrappedMediaFile.get();
+                    return requestService.executeMediaResponse(HttpStatus.OK, mediaFile.getMediaType(), mediaFile.getContentLength(), mediaFile.getInputStream());
+                })
+                .exceptionally(e -> requestService.executeFailureResponse(e, "Unable to return image!"));
     }
 
     @Deprecated
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadImage(@RequestParam MultipartFile file) {
+    public CompletableFuture<ResponseEntity<?>> uploadImage(@RequestParam MultipartFile file) {
         Optional<User> wrappedUser = getAuthorizedUser();
 
 //        if (!isUserAuthorized()) {
 //            return requestService.executeError(HttpStatus.BAD_REQUEST, 10, "The authorized user is undefined!");
 //        }
 
-        try {
-            String objectKey = wrappedUser.get().getUsername() + File.separator + file.getOriginalFilename();
-
-            if (!MinioMediaFile.isAvailable(objectKey)) {
-                return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "This file format is unavailable!");
-            }
+        String objectKey;
 
-            minioService.uploadFile(objectKey, file);
-            return requestService.executeCustomResponse(
-                    FileUploadResponse.builder()
-                            .status(HttpStatus.OK.value())
-                            .message("The file has been uploaded successfully!")
-                            .path(objectKey)
-                            .build()
-            );
+        try {
+            objectKey = wrappedUser.get().getUsername() + File.separator + file.getOriginalFilename();
         } catch (NullPointerException e) {
-            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Unable to upload image!");
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "Unable to upload image!"));
+        }
+
+        if (!MinioMediaFile.isAvailable(objectKey)) {
+            return CompletableFuture.completedFuture(requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "This file format is unavailable!"));
         }
+
+        return uploadEngine.upload(objectKey, file)
+                .<ResponseEntity<?>>thenApply(stored -> requestService.executeCustomResponse(
+                        FileUploadResponse.builder()
+                                .status(HttpStatus.OK.value())
+                                .message("The file has been uploaded successfully!")
+                                .path(objectKey)
+                                .build()
+                ))
+                .exceptionally(e -> requestService.executeFailureResponse(e, "Unable to upload image!"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package me.artemiyulyanov.uptodate.controllers.api.files;
+
+import me.artemiyulyanov.uptodate.controllers.AuthenticatedController;
+import me.artemiyulyanov.uptodate.controllers.api.files.responses.PresignedUrlResponse;
+import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.UserService;
+import me.artemiyulyanov.uptodate.web.RequestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Lets the clients move the media bytes directly from/to MinIO: the server only issues short-lived presigned URLs
+ * scoped to the resource folders of the entities the user owns, and records the object once the upload is completed.
+ */
+@RestController
+@RequestMapping("/api/files/presigned")
+public class PresignedFileController extends AuthenticatedController {
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ResourceFolderResolver resourceFolderResolver;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Value("${storage.presigned.expiration-seconds:300}")
+    private long expirationSeconds;
+
+    @Value("${storage.presigned.max-size:10485760}")
+    private long maxSize;
+
+    @PostMapping("/upload")
+    public ResponseEntity<?> presignUpload(
+            @RequestParam ResourceScope scope,
+            @RequestParam(required = false) Long id,
+            @RequestParam String filename,
+            @RequestParam(required = false) String contentType) {
+        User user = getAuthorizedUser().get();
+
+        if (!resourceFolderResolver.isFilenameValid(filename)) {
+            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "This file format is unavailable!");
+        }
+
+        Optional<String> resourceFolder = resourceFolderResolver.getOwnedResourceFolder(user, scope, id);
+        if (resourceFolder.isEmpty()) {
+            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to upload the resources here!");
+        }
+
+        String objectKey = resourceFolder.get() + File.separator + filename;
+        Date expiresAt = getExpiration();
+        URL url = minioService.generatePresignedUploadUrl(objectKey, contentType, expiresAt);
+
+        return requestService.executeCustomResponse(
+                PresignedUrlResponse.builder()
+                        .status(HttpStatus.OK.value())
+                        .message("The upload URL has been issued successfully!")
+                        .url(url.toString())
+                        .path(objectKey)
+                        .expiresAt(expiresAt)
+                        .build()
+        );
+    }
+
+    @PostMapping("/complete")
+    public ResponseEntity<?> completeUpload(
+            @RequestParam ResourceScope scope,
+            @RequestParam(required = false) Long id,
+            @RequestParam String filename) {
+        User user = getAuthorizedUser().get();
+
+        if (!resourceFolderResolver.isFilenameValid(filename)) {
+            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "This file format is unavailable!");
+        }
+
+        Optional<String> resourceFolder = resourceFolderResolver.getOwnedResourceFolder(user, scope, id);
+        if (resourceFolder.isEmpty()) {
+            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to upload the resources here!");
+        }
+
+        String objectKey = resourceFolder.get() + File.separator + filename;
+        if (!minioService.completeDirectUpload(objectKey, maxSize)) {
+            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The uploaded file is missing or too large!");
+        }
+
+        if (scope == ResourceScope.USER) userService.replaceIcon(user, objectKey);
+
+        return requestService.executeApiResponse(HttpStatus.OK, "The upload has been completed successfully!");
+    }
+
+    @GetMapping("/get")
+    public ResponseEntity<?> presignDownload(@RequestParam String path) {
+        Date expiresAt = getExpiration();
+        Optional<URL> url = minioService.generatePresignedDownloadUrl(path, expiresAt);
+
+        if (url.isEmpty()) {
+            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The file is undefined!");
+        }
+
+        return requestService.executeCustomResponse(
+                PresignedUrlResponse.builder()
+                        .status(HttpStatus.OK.value())
+                        .message("The download URL has been issued successfully!")
+                        .url(url.get().toString())
+                        .path(path)
+                        .expiresAt(expiresAt)
+                        .build()
+        );
+    }
+
+    private Date getExpiration() {
+        return new Date(System.currentTimeMillis() + expirationSeconds * 1000);
+    }
+}
@@ -0,0 +1,42 @@
+package me.artemiyulyanov.uptodate.controllers.api.files;
+
+import me.artemiyulyanov.uptodate.minio.MinioMediaFile;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.ArticleCommentService;
+import me.artemiyulyanov.uptodate.services.ArticleService;
+import me.artemiyulyanov.uptodate.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Tells the resource folder the user is allowed to upload into for the files endpoints which write directly to the storage.
+ */
+@Component
+public class ResourceFolderResolver {
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleCommentService articleCommentService;
+
+    @Autowired
+    private UserService userService;
+
+    public Optional<String> getOwnedResourceFolder(User user, ResourceScope scope, Long id) {
+        return switch (scope) {
+            case ARTICLE -> Optional.ofNullable(id).flatMap(articleService::findById)
+                    .filter(article -> article.getAuthor().getId().equals(user.getId()))
+                    .map(article -> articleService.getResourceManager().getResourceFolder(article));
+            case COMMENT -> Optional.ofNullable(id).flatMap(articleCommentService::findById)
+                    .filter(comment -> comment.getAuthor().getId().equals(user.getId()))
+                    .map(comment -> articleCommentService.getResourceManager().getResourceFolder(comment));
+            case USER -> Optional.of(userService.getResourceManager().getResourceFolder(user));
+        };
+    }
+
+    public boolean isFilenameValid(String filename) {
+        return filename != null && !filename.contains("/") && !filename.contains("\\") && !filename.contains("..") && MinioMediaFile.isAvailable(filename);
+    }
+}
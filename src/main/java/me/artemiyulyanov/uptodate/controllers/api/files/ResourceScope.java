@@ -0,0 +1,5 @@
+package me.artemiyulyanov.uptodate.controllers.api.files;
+
+public enum ResourceScope {
+    ARTICLE, COMMENT, USER;
+}
@@ -0,0 +1,128 @@
+package me.artemiyulyanov.uptodate.controllers.api.files;
+
+import jakarta.servlet.http.HttpServletRequest;
+import me.artemiyulyanov.uptodate.controllers.AuthenticatedController;
+import me.artemiyulyanov.uptodate.controllers.api.files.responses.FilesUploadResponse;
+import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.StreamingUploader;
+import me.artemiyulyanov.uptodate.minio.UploadRejectedException;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.UserService;
+import me.artemiyulyanov.uptodate.web.RequestService;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadBase;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.FileUploadIOException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the multipart body as it arrives instead of letting the multipart resolver spool it: every file is checked
+ * by its leading bytes and piped to MinIO chunk by chunk, and a bad file stops the request without reading the remainder.
+ * The scope and the id are path variables on purpose: reading a request parameter would make the container parse the whole body.
+ */
+@RestController
+@RequestMapping("/api/files/stream")
+public class StreamingFileController extends AuthenticatedController {
+    @Autowired
+    private StreamingUploader streamingUploader;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ResourceFolderResolver resourceFolderResolver;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Value("${storage.stream.max-request-size:52428800}")
+    private long maxRequestSize;
+
+    @PostMapping({"/{scope}", "/{scope}/{id}"})
+    public ResponseEntity<?> streamUpload(
+            @PathVariable ResourceScope scope,
+            @PathVariable(required = false) Long id,
+            HttpServletRequest request) {
+        User user = getAuthorizedUser().get();
+
+        if (request.getContentType() == null || !request.getContentType().toLowerCase().startsWith(FileUploadBase.MULTIPART)) {
+            return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "The request is not multipart!");
+        }
+
+        if (request.getContentLengthLong() > maxRequestSize) {
+            return requestService.executeApiResponse(HttpStatus.PAYLOAD_TOO_LARGE, "The request is too large!");
+        }
+
+        Optional<String> resourceFolder = resourceFolderResolver.getOwnedResourceFolder(user, scope, id);
+        if (resourceFolder.isEmpty()) {
+            return requestService.executeApiResponse(HttpStatus.FORBIDDEN, "The authorized user has no authority to upload the resources here!");
+        }
+
+        // the streaming parser of commons-fileupload as bundled with Tomcat, which nothing is spooled through
+        FileUpload upload = new FileUpload();
+        upload.setSizeMax(maxRequestSize);
+
+        List<String> storedObjectKeys = new ArrayList<>();
+
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField()) continue;
+
+                if (!resourceFolderResolver.isFilenameValid(item.getName()) || (scope == ResourceScope.USER && !storedObjectKeys.isEmpty())) {
+                    minioService.deleteFiles(storedObjectKeys);
+                    return requestService.executeApiResponse(HttpStatus.BAD_REQUEST, "This file format is unavailable!");
+                }
+
+                String objectKey = resourceFolder.get() + File.separator + item.getName();
+                try (InputStream inputStream = item.openStream()) {
+                    streamingUploader.upload(objectKey, item.getName(), inputStream);
+                }
+
+                storedObjectKeys.add(objectKey);
+            }
+        } catch (UploadRejectedException e) {
+            minioService.deleteFiles(storedObjectKeys);
+
+            return e.getReason() == UploadRejectedException.Reason.TOO_LARGE
+                    ? requestService.executeApiResponse(HttpStatus.PAYLOAD_TOO_LARGE, "The file is too large!")
+                    : requestService.executeApiResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "This file format is unavailable!");
+        } catch (FileUploadException | FileUploadIOException e) {
+            // the limit is hit either between the items or while one of them is read
+            minioService.deleteFiles(storedObjectKeys);
+            return requestService.executeApiResponse(HttpStatus.PAYLOAD_TOO_LARGE, "The request is too large!");
+        } catch (IOException | RuntimeException e) {
+            minioService.deleteFiles(storedObjectKeys);
+            return requestService.executeApiResponse(HttpStatus.BAD_GATEWAY, "Unable to upload the resources!");
+        }
+
+        if (scope == ResourceScope.USER && !storedObjectKeys.isEmpty()) userService.replaceIcon(user, storedObjectKeys.get(0));
+
+        return requestService.executeCustomResponse(
+                FilesUploadResponse.builder()
+                        .status(HttpStatus.OK.value())
+                        .message("The files have been uploaded successfully!")
+                        .paths(storedObjectKeys)
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package me.artemiyulyanov.uptodate.controllers.api.files.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+import me.artemiyulyanov.uptodate.web.ServerResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Component
+public class PresignedUrlResponse extends ServerResponse<Map<String, Object>> {
+    @JsonIgnore
+    private String url, path;
+
+    @JsonIgnore
+    private Date expiresAt;
+
+    @Override
+    public Map<String, Object> getResponse() {
+        return Map.of("url", url, "path", path, "expiresAt", expiresAt.getTime());
+    }
+}
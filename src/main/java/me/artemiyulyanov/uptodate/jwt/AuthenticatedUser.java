@@ -0,0 +1,35 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Optional;
+
+/**
+ * The user of the current request, loaded from the DB at most once per request and only if someone asks for it.
+ */
+@Component
+@RequestScope
+public class AuthenticatedUser {
+    @Autowired
+    private UserService userService;
+
+    private Optional<User> user;
+
+    public Optional<User> get() {
+        if (user == null) user = getPrincipal().map(JWTPrincipal::getUserId).flatMap(userService::findById);
+        return user;
+    }
+
+    public Optional<JWTPrincipal> getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof JWTPrincipal principal)) return Optional.empty();
+        return Optional.of(principal);
+    }
+}
@@ -0,0 +1,56 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over strings, safe for concurrent use without locks. It only answers whether a string
+ * might have been added: a negative answer is definite, a positive one has to be confirmed by the source of truth.
+ */
+class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitsCount;
+    private final int hashesCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitsCount = bits.length() * 64L;
+        this.hashesCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    void add(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L), hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+
+        for (int i = 0; i < hashesCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitsCount);
+            bits.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L), hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+
+        for (int i = 0; i < hashesCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitsCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** FNV-1a over the UTF-8 bytes, seeded and finished with a 64-bit mix so that the two hashes are independent **/
+    private static long hash(String value, long seed) {
+        long hash = 0xCBF29CE484222325L ^ seed;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
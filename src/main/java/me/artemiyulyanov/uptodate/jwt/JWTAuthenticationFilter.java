@@ -4,8 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import me.artemiyulyanov.uptodate.mail.EmailVerificationCode;
-import me.artemiyulyanov.uptodate.services.UserService;
+import me.artemiyulyanov.uptodate.services.UserStateCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,6 +18,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
@@ -27,22 +27,23 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     @Lazy
     @Autowired
-    private UserService userService;
+    private UserStateCache userStateCache;
+
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String token = extractTokenFromRequest(request);
-        String username = null;
-
-        if (token != null && jwtUtil.isTokenValid(token) && jwtUtil.extractScope(token).equalsIgnoreCase("ACCESS")) {
-            username = jwtUtil.extractUsername(token);
-        }
+        Optional<JWTPrincipal> principal = token != null
+                ? jwtUtil.parse(token).filter(parsedPrincipal -> parsedPrincipal.hasScope("ACCESS"))
+                : Optional.empty();
 
-        if (username != null && userService.existsByUsername(username)) {
+        if (principal.isPresent() && isCurrent(principal.get())) {
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                    username,
+                    principal.get(),
                     null,
-                    jwtUtil.extractAuthorities(token).stream().map(SimpleGrantedAuthority::new).toList()
+                    principal.get().getRoles().stream().map(SimpleGrantedAuthority::new).toList()
             );
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
@@ -50,6 +51,15 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /** The user still exists, has not revoked the tokens issued before and the family of the token is not revoked, answered from memory **/
+    private boolean isCurrent(JWTPrincipal principal) {
+        if (principal.getUserId() == null || tokenRevocationStore.isFamilyRevoked(principal.getFamily())) return false;
+
+        return userStateCache.get(principal.getUserId())
+                .filter(userState -> userState.getTokenVersion() == principal.getTokenVersion())
+                .isPresent();
+    }
+
     private String extractTokenFromRequest(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) return authHeader.substring(7);
@@ -0,0 +1,50 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import lombok.Getter;
+
+import java.security.Principal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The verified claims of a token, parsed once and shared as is: every field is immutable.
+ */
+@Getter
+public final class JWTPrincipal implements Principal {
+    private final Long userId;
+    private final int tokenVersion;
+    private final String username;
+    private final String scope;
+    private final List<String> roles;
+    private final long expiresAt;
+    private final String tokenId;
+    private final String family;
+
+    public JWTPrincipal(Long userId, int tokenVersion, String username, String scope, List<String> roles, long expiresAt, String tokenId, String family) {
+        this.userId = userId;
+        this.tokenVersion = tokenVersion;
+        this.username = username;
+        this.scope = scope;
+        this.roles = roles == null ? List.of() : List.copyOf(roles);
+        this.expiresAt = expiresAt;
+        this.tokenId = tokenId;
+        this.family = family;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public Date getExpiration() {
+        return new Date(expiresAt);
+    }
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+
+    public boolean hasScope(String scope) {
+        return scope.equalsIgnoreCase(this.scope);
+    }
+}
@@ -1,100 +1,202 @@
 package me.artemiyulyanov.uptodate.jwt;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.UserService;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class JWTUtil {
     public static final long ACCESS_TOKEN_EXPIRATION = 1000 * 60 * 15; // 15 minutes is an expiration timeline for access token
     public static final long REFRESH_TOKEN_EXPIRATION = 1000 * 3600 * 24; // 24 hours is an expiration timeline for refresh token
-    public static final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
 
-    public String generateAccessToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
+    @Autowired
+    private SigningKeyRing signingKeyRing;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    /** Verified principals by the SHA-256 of the token, each kept no longer than the token is valid **/
+    private Cache<String, JWTPrincipal> verifiedTokens;
+
+    private JwtParser jwtParser;
+
+    private Timer cachedTimer, verifiedTimer, invalidTimer;
+
+    @PostConstruct
+    public void init() {
+        cachedTimer = verificationTimer("cached");
+        verifiedTimer = verificationTimer("verified");
+        invalidTimer = verificationTimer("invalid");
+
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return signingKeyRing.getKey(header.getKeyId()).orElseThrow(() -> new JwtException("The signing key is unknown"));
+                    }
+                })
+                .build();
+
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, JWTPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String digest, JWTPrincipal principal, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, principal.getExpiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, JWTPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, JWTPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
-        List<String> roleNames = userDetails.getAuthorities()
-                .stream()
-                .map(GrantedAuthority::getAuthority)
-                .toList();
-        claims.put("roles", roleNames);
-        claims.put("username", userDetails.getUsername());
-        claims.put("scope", "ACCESS");
+    /** Every login starts a new family of tokens, revoked as a whole by TokenRevocationStore **/
+    public static String newFamily() {
+        return UUID.randomUUID().toString();
+    }
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + ACCESS_TOKEN_EXPIRATION))
-                .signWith(key)
-                .compact();
+    public String generateAccessToken(User user, String family) {
+        return generateToken(user, "ACCESS", family, ACCESS_TOKEN_EXPIRATION);
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
+    public String generateRefreshToken(User user, String family) {
+        return generateToken(user, "REFRESH", family, REFRESH_TOKEN_EXPIRATION);
+    }
+
+    private String generateToken(User user, String scope, String family, long expiration) {
         Map<String, Object> claims = new HashMap<>();
 
-        List<String> roleNames = userDetails.getAuthorities()
+        List<String> roleNames = UserService.getAuthorities(user)
                 .stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
         claims.put("roles", roleNames);
-        claims.put("username", userDetails.getUsername());
-        claims.put("scope", "REFRESH");
+        claims.put("uid", user.getId());
+        claims.put("ver", user.getTokenVersion());
+        claims.put("fam", family);
+        claims.put("username", user.getUsername());
+        claims.put("scope", scope);
 
-        return Jwts.builder()
+        return signingKeyRing.sign(Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + REFRESH_TOKEN_EXPIRATION))
-                .signWith(key)
+                .setExpiration(new Date(System.currentTimeMillis() + expiration)))
                 .compact();
     }
 
+    /**
+     * Verifies the signature and the expiration once and returns every claim the application needs.
+     * A token seen before is answered from the cache without any crypto until it expires.
+     */
+    public Optional<JWTPrincipal> parse(String token) {
+        long startedAt = System.nanoTime();
+        String digest = digest(token);
+
+        JWTPrincipal cachedPrincipal = verifiedTokens.getIfPresent(digest);
+        if (cachedPrincipal != null && !cachedPrincipal.isExpired()) {
+            cachedTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.of(cachedPrincipal);
+        }
+
+        try {
+            Claims claims = getAllClaimsFromToken(token);
+            Number userId = claims.get("uid", Number.class);
+            Number tokenVersion = claims.get("ver", Number.class);
+
+            JWTPrincipal principal = new JWTPrincipal(
+                    userId != null ? userId.longValue() : null,
+                    tokenVersion != null ? tokenVersion.intValue() : 0,
+                    claims.get("username", String.class),
+                    claims.get("scope", String.class),
+                    claims.get("roles", List.class),
+                    claims.getExpiration().getTime(),
+                    claims.getId(),
+                    claims.get("fam", String.class)
+            );
+
+            verifiedTokens.put(digest, principal);
+            verifiedTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.of(principal);
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+    }
+
     public String extractUsername(String token) {
-        return getAllClaimsFromToken(token).get("username", String.class);
+        return parse(token).map(JWTPrincipal::getUsername).orElseThrow(() -> new JwtException("The token is invalid"));
     }
 
     public List<String> extractAuthorities(String token) {
-        return getAllClaimsFromToken(token).get("roles", List.class);
+        return parse(token).map(JWTPrincipal::getRoles).orElseThrow(() -> new JwtException("The token is invalid"));
     }
 
     public String extractScope(String token) {
-        return getAllClaimsFromToken(token).get("scope", String.class);
+        return parse(token).map(JWTPrincipal::getScope).orElseThrow(() -> new JwtException("The token is invalid"));
     }
 
     public Date extractExpirationDate(String token) {
-        return getAllClaimsFromToken(token).getExpiration();
+        return parse(token).map(JWTPrincipal::getExpiration).orElseThrow(() -> new JwtException("The token is invalid"));
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenValid(String token) {
-        try {
-            extractUsername(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parse(token).isPresent();
     }
 
     public boolean isTokenExpired(String token) {
-        return extractExpirationDate(token).before(new Date());
+        return parse(token).map(JWTPrincipal::isExpired).orElse(true);
+    }
+
+    private Timer verificationTimer(String result) {
+        return Timer.builder("jwt.verification")
+                .description("The time to turn a bearer token into a principal")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
     }
-}
\ No newline at end of file
+}
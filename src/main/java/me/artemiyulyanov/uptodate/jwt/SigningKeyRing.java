@@ -0,0 +1,287 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The HS256 keys shared by every node of the cluster, stored in Redis by key id (kid). The tokens are signed with the active
+ * key and carry its kid, so any node holding the ring verifies them. The ring is copied into memory and refreshed on a schedule,
+ * so the verification never touches Redis.
+ *
+ * Rotation: once the active key is older than jwt.keys.rotation-ms, one node adds a new key. The new key is only used for signing
+ * after jwt.keys.activation-delay-ms, so every node has loaded it by then. The previous key stays in the ring
+ * for jwt.keys.overlap-ms after its successor became active, which covers the lifetime of the tokens it has signed.
+ * With jwt.keys.store=local the ring lives in memory only (a single node, e.g. during development).
+ *
+ * The secrets are stored encrypted with AES-GCM under jwt.keys.master-key, bound to their kid. Until the ring has been
+ * loaded from Redis the node signs nothing and reports itself DOWN: a key of its own would not be verified by the others.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing implements HealthIndicator {
+    private static final String KEYS_HASH = "jwt:keys";
+    private static final String ROTATION_LOCK = "jwt:keys:rotation";
+    private static final String ENCRYPTED_MARKER = "gcm:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${jwt.keys.store:redis}")
+    private String store;
+
+    /** 32 bytes in Base64, e.g. openssl rand -base64 32. Required unless the ring is local **/
+    @Value("${jwt.keys.master-key:}")
+    private String encodedMasterKey;
+
+    @Value("${jwt.keys.rotation-ms:604800000}")
+    private long rotation;
+
+    @Value("${jwt.keys.activation-delay-ms:120000}")
+    private long activationDelay;
+
+    @Value("${jwt.keys.overlap-ms:" + JWTUtil.REFRESH_TOKEN_EXPIRATION + "}")
+    private long overlap;
+
+    /** The least time between two reloads caused by an unknown kid, so forged kids cannot hammer Redis **/
+    @Value("${jwt.keys.miss-reload-interval-ms:5000}")
+    private long missReloadInterval;
+
+    private volatile Ring ring = new Ring(Map.of(), null);
+    private volatile long lastMissReload;
+
+    private SecretKey masterKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /** Not a monitor: the refresh waits on Redis, which would pin the carrier of a virtual request thread **/
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        if (!isLocal()) {
+            if (encodedMasterKey.isBlank()) throw new IllegalStateException("jwt.keys.master-key has to be set to keep the JWT signing keys in Redis");
+            masterKey = new SecretKeySpec(Base64.getDecoder().decode(encodedMasterKey.trim()), "AES");
+        }
+
+        refresh();
+    }
+
+    /** Signs with the active key and names it in the kid header, both taken from the same ring **/
+    public JwtBuilder sign(JwtBuilder builder) {
+        SigningKey active = ring.getActive();
+
+        if (active == null) {
+            reloadAfterMiss();
+            active = ring.getActive();
+        }
+        if (active == null) throw new IllegalStateException("No JWT signing key has been loaded from Redis yet");
+
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, active.getKid())
+                .signWith(active.getSecret());
+    }
+
+    @Override
+    public Health health() {
+        SigningKey active = ring.getActive();
+        if (active == null) return Health.down().withDetail("reason", "No signing key has been loaded from Redis").build();
+
+        return Health.up().withDetail("keys", ring.getKeys().size()).build();
+    }
+
+    /** Answered from memory. An unknown kid reloads the ring at most once per miss-reload-interval, in case a key has just been added **/
+    public Optional<SecretKey> getKey(String kid) {
+        if (kid == null) return Optional.empty();
+
+        SigningKey key = ring.getKeys().get(kid);
+        if (key != null) return Optional.of(key.getSecret());
+
+        reloadAfterMiss();
+        return Optional.ofNullable(ring.getKeys().get(kid)).map(SigningKey::getSecret);
+    }
+
+    private void reloadAfterMiss() {
+        long now = System.currentTimeMillis();
+        if (isLocal() || now - lastMissReload < missReloadInterval) return;
+
+        lastMissReload = now;
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.refresh-ms:60000}", initialDelayString = "${jwt.keys.refresh-ms:60000}")
+    public void refresh() {
+        refreshLock.lock();
+        long now = System.currentTimeMillis();
+
+        try {
+            List<SigningKey> keys = isLocal() ? new ArrayList<>(ring.getKeys().values()) : load();
+            keys.sort(Comparator.comparingLong(SigningKey::getCreatedAt));
+
+            if (keys.isEmpty() || now - keys.get(keys.size() - 1).getCreatedAt() >= rotation) {
+                rotate(now).ifPresent(keys::add);
+            }
+            if (keys.isEmpty()) keys = awaitFirstKey();
+            retire(keys, now);
+
+            ring = new Ring(index(keys), getActive(keys, now));
+        } catch (RuntimeException e) {
+            if (ring.getActive() == null) {
+                log.error("Unable to load the JWT signing keys, no token can be signed until Redis is back", e);
+            } else {
+                log.warn("Unable to refresh the JWT signing keys, keeping the ones loaded before", e);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private List<SigningKey> load() {
+        List<SigningKey> keys = new ArrayList<>();
+        redisTemplate.<String, String>opsForHash().entries(KEYS_HASH).forEach((kid, value) -> keys.add(decode(kid, value)));
+        return keys;
+    }
+
+    /** Another node is creating the very first key of the ring, which is stored right after it takes the lock **/
+    private List<SigningKey> awaitFirstKey() {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            List<SigningKey> keys = load();
+            if (!keys.isEmpty()) return keys;
+        }
+        throw new IllegalStateException("No JWT signing key has been stored in Redis");
+    }
+
+    /** Adds a new key unless another node is doing it right now **/
+    private Optional<SigningKey> rotate(long now) {
+        SigningKey key = generate(now);
+        if (isLocal()) return Optional.of(key);
+
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(ROTATION_LOCK, key.getKid(), Duration.ofMillis(activationDelay));
+        if (!Boolean.TRUE.equals(locked)) return Optional.empty();
+
+        redisTemplate.opsForHash().put(KEYS_HASH, key.getKid(), encode(key));
+        log.info("Added the JWT signing key {}", key.getKid());
+        return Optional.of(key);
+    }
+
+    /** Drops the keys whose successor has been active for longer than the overlap **/
+    private void retire(List<SigningKey> keys, long now) {
+        while (keys.size() > 1 && now - keys.get(1).getCreatedAt() - activationDelay > overlap) {
+            SigningKey key = keys.remove(0);
+            if (!isLocal()) redisTemplate.opsForHash().delete(KEYS_HASH, key.getKid());
+            log.info("Retired the JWT signing key {}", key.getKid());
+        }
+    }
+
+    /** The newest key every node has had the time to load, or the newest one at all while the ring is being created **/
+    private SigningKey getActive(List<SigningKey> keys, long now) {
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            if (now - keys.get(i).getCreatedAt() >= activationDelay) return keys.get(i);
+        }
+        return keys.get(keys.size() - 1);
+    }
+
+    private boolean isLocal() {
+        return store.equalsIgnoreCase("local");
+    }
+
+    private static Map<String, SigningKey> index(List<SigningKey> keys) {
+        Map<String, SigningKey> indexedKeys = new HashMap<>();
+        keys.forEach(key -> indexedKeys.put(key.getKid(), key));
+        return Map.copyOf(indexedKeys);
+    }
+
+    private static SigningKey generate(long now) {
+        return new SigningKey(UUID.randomUUID().toString(), now, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Ring {
+        private final Map<String, SigningKey> keys;
+        private final SigningKey active;
+    }
+
+    /** createdAt:gcm:Base64(iv + ciphertext), the kid is the associated data so an entry cannot be moved to another kid **/
+    private String encode(SigningKey key) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(key.getKid().getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(key.getSecret().getEncoded());
+
+            byte[] value = Arrays.copyOf(iv, IV_LENGTH + ciphertext.length);
+            System.arraycopy(ciphertext, 0, value, IV_LENGTH, ciphertext.length);
+            return key.getCreatedAt() + ":" + ENCRYPTED_MARKER + Base64.getEncoder().encodeToString(value);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt the JWT signing key " + key.getKid(), e);
+        }
+    }
+
+    private SigningKey decode(String kid, String value) {
+        int separator = value.indexOf(':');
+
+        // a secret stored unencrypted is never trusted, whoever has written it
+        if (separator < 0 || !value.startsWith(ENCRYPTED_MARKER, separator + 1)) {
+            throw new IllegalStateException("The JWT signing key " + kid + " is corrupt, its secret is not encrypted");
+        }
+
+        long createdAt = Long.parseLong(value.substring(0, separator));
+        String encodedSecret = value.substring(separator + 1);
+
+        try {
+            byte[] encrypted = Base64.getDecoder().decode(encodedSecret.substring(ENCRYPTED_MARKER.length()));
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH_BITS, encrypted, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] secret = cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+
+            return new SigningKey(kid, createdAt, new SecretKeySpec(secret, SignatureAlgorithm.HS256.getJcaName()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt the JWT signing key " + kid + ", is jwt.keys.master-key the same on every node?", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class SigningKey {
+        private final String kid;
+        private final long createdAt;
+        private final SecretKey secret;
+    }
+}
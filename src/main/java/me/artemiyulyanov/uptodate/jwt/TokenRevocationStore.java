@@ -0,0 +1,117 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Keeps the refresh tokens single-use and the token families revocable. Every login starts a family: the refresh token
+ * and the access tokens issued from it share the fam claim, and each refresh replaces the refresh token with a new one
+ * of the same family. A refresh token presented twice means it has leaked, so the whole family is revoked.
+ *
+ * The revoked families are Redis keys living as long as a token of the family may still be valid. Every node keeps
+ * a Bloom filter of them, fed over pub/sub, so checking a family which is not revoked (nearly every request) costs
+ * no network call; only the filter hits are confirmed in Redis. The filter is rebuilt on a schedule to forget
+ * the expired families.
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore {
+    private static final String USED_PREFIX = "jwt:used:";
+    private static final String REVOKED_FAMILY_PREFIX = "jwt:revoked:family:";
+    private static final String REVOCATIONS_CHANNEL = "jwt:revocations";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${jwt.revocation.bloom.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${jwt.revocation.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter revokedFamilies;
+
+    /** The filter being rebuilt, which receives the revocations published meanwhile as well **/
+    private volatile BloomFilter rebuiltFamilies;
+
+    /** False until the filter has been loaded from Redis once, every check goes to Redis meanwhile **/
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        revokedFamilies = new BloomFilter(expectedInsertions, falsePositiveRate);
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> remember(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(REVOCATIONS_CHANNEL)
+        );
+        rebuild();
+    }
+
+    public boolean isFamilyRevoked(String family) {
+        if (family == null) return true;
+        if (loaded && !revokedFamilies.mightContain(family)) return false;
+
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_FAMILY_PREFIX + family));
+        } catch (RuntimeException e) {
+            log.warn("Unable to check whether the token family {} is revoked, treating it as revoked", family, e);
+            return true;
+        }
+    }
+
+    /** Revokes the refresh token and every token issued from it or from the tokens it has been rotated into **/
+    public void revokeFamily(String family) {
+        // a family never outlives the refresh token issued last, which is at most REFRESH_TOKEN_EXPIRATION old
+        redisTemplate.opsForValue().set(REVOKED_FAMILY_PREFIX + family, "1", Duration.ofMillis(JWTUtil.REFRESH_TOKEN_EXPIRATION));
+        remember(family);
+        redisTemplate.convertAndSend(REVOCATIONS_CHANNEL, family);
+    }
+
+    /** Marks the refresh token as used until it expires. False if it has been used before **/
+    public boolean consume(JWTPrincipal refreshPrincipal) {
+        long lifetime = Math.max(1, refreshPrincipal.getExpiresAt() - System.currentTimeMillis());
+        Boolean consumed = redisTemplate.opsForValue().setIfAbsent(USED_PREFIX + refreshPrincipal.getTokenId(), "1", Duration.ofMillis(lifetime));
+
+        return Boolean.TRUE.equals(consumed);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.bloom.rebuild-ms:3600000}", initialDelayString = "${jwt.revocation.bloom.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        BloomFilter families = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuiltFamilies = families;
+
+        ScanOptions scanOptions = ScanOptions.scanOptions().match(REVOKED_FAMILY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(scanOptions)) {
+            keys.forEachRemaining(key -> families.add(key.substring(REVOKED_FAMILY_PREFIX.length())));
+
+            revokedFamilies = families;
+            loaded = true;
+        } catch (RuntimeException e) {
+            log.warn("Unable to load the revoked token families, keeping the filter loaded before", e);
+        } finally {
+            rebuiltFamilies = null;
+        }
+    }
+
+    private void remember(String family) {
+        revokedFamilies.add(family);
+
+        BloomFilter families = rebuiltFamilies;
+        if (families != null) families.add(family);
+    }
+}
@@ -0,0 +1,122 @@
+package me.artemiyulyanov.uptodate.mail;
+
+import jakarta.transaction.Transactional;
+import me.artemiyulyanov.uptodate.models.OutboxMail;
+import me.artemiyulyanov.uptodate.repositories.OutboxMailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The mails waiting to be delivered, persisted in the same transaction as the change which sends them, so the request
+ * never waits on SMTP and a mail server outage only delays the delivery. The mails are delivered by MailOutboxWorker;
+ * the failed ones are retried with an exponential backoff and given up after mail.outbox.max-attempts.
+ * The sent mails are deleted after mail.outbox.retention-ms, the failed ones are kept for the investigation.
+ */
+@Service
+@Transactional
+public class MailOutbox {
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
+    @Lazy
+    @Autowired
+    private MailOutboxWorker mailOutboxWorker;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-ms:5000}")
+    private long backoff;
+
+    @Value("${mail.outbox.max-backoff-ms:600000}")
+    private long maxBackoff;
+
+    public void enqueue(String recipient, String subject, String text) {
+        LocalDateTime now = LocalDateTime.now();
+
+        outboxMailRepository.save(OutboxMail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .text(text)
+                .status(OutboxMail.Status.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        // the worker is woken up once the mail is visible to it instead of waiting for the next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mailOutboxWorker.wakeUp();
+                }
+            });
+        } else {
+            mailOutboxWorker.wakeUp();
+        }
+    }
+
+    /** Takes the due mails for the caller only: they are not due for anyone else until the lease is over **/
+    public List<OutboxMail> claim(int limit, long leaseMillis) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMail> mails = outboxMailRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+
+        if (!mails.isEmpty()) {
+            outboxMailRepository.lease(mails.stream().map(OutboxMail::getId).toList(), now.plusNanos(leaseMillis * 1_000_000));
+        }
+        return mails;
+    }
+
+    public void complete(List<OutboxMail> sentMails, Map<OutboxMail, String> failedMails) {
+        LocalDateTime now = LocalDateTime.now();
+
+        sentMails.forEach(mail -> {
+            mail.setStatus(OutboxMail.Status.SENT);
+            mail.setAttempts(mail.getAttempts() + 1);
+            mail.setSentAt(now);
+            mail.setLastError(null);
+        });
+
+        failedMails.forEach((mail, error) -> {
+            int attempts = mail.getAttempts() + 1;
+
+            mail.setAttempts(attempts);
+            mail.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (attempts >= maxAttempts) {
+                mail.setStatus(OutboxMail.Status.FAILED);
+            } else {
+                mail.setNextAttemptAt(now.plusNanos(getBackoff(attempts) * 1_000_000));
+            }
+        });
+
+        outboxMailRepository.saveAll(sentMails);
+        outboxMailRepository.saveAll(failedMails.keySet());
+    }
+
+    /** Deletes at most limit of the mails sent before the given time, returns how many have been deleted **/
+    public int purgeSent(LocalDateTime sentBefore, int limit) {
+        List<Long> ids = outboxMailRepository.findSentBefore(sentBefore, PageRequest.of(0, limit));
+        if (!ids.isEmpty()) outboxMailRepository.deleteAllByIdInBatch(ids);
+        return ids.size();
+    }
+
+    public long countPending() {
+        return outboxMailRepository.countByStatus(OutboxMail.Status.PENDING);
+    }
+
+    /** Doubles with every attempt up to max-backoff, jittered so the mails failed together are not retried together **/
+    private long getBackoff(int attempts) {
+        long delay = Math.min(maxBackoff, backoff << Math.min(attempts - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
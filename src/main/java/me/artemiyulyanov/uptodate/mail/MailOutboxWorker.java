@@ -0,0 +1,175 @@
+package me.artemiyulyanov.uptodate.mail;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.models.OutboxMail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the outbox on a small pool of workers. Each worker claims a batch of due mails and sends the whole batch
+ * over a single SMTP connection, then claims the next one until the outbox is drained. The workers are woken up
+ * by every new mail and by a periodic poll, which also picks up the retries.
+ *
+ * Metrics: mail.outbox.depth (the mails waiting to be delivered) and mail.outbox.delivery.latency (from the moment
+ * the mail has been enqueued until it has been accepted by the SMTP server).
+ */
+@Slf4j
+@Component
+public class MailOutboxWorker {
+    @Autowired
+    private MailOutbox mailOutbox;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mail.outbox.concurrency:4}")
+    private int concurrency;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    /** How long a claimed batch is held by the worker before the other workers may take it over **/
+    @Value("${mail.outbox.lease-ms:120000}")
+    private long lease;
+
+    @Value("${mail.outbox.retention-ms:604800000}")
+    private long retention;
+
+    @Value("${mail.outbox.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private ExecutorService deliveryExecutor;
+    private final AtomicLong depth = new AtomicLong();
+    private Timer deliveryLatency;
+
+    @PostConstruct
+    public void init() {
+        // a wake-up finding every worker busy is dropped, the busy workers drain the outbox anyway
+        deliveryExecutor = new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(concurrency),
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+
+        Gauge.builder("mail.outbox.depth", depth, AtomicLong::get)
+                .description("The mails waiting to be delivered")
+                .register(meterRegistry);
+        deliveryLatency = Timer.builder("mail.outbox.delivery.latency")
+                .description("The time from enqueueing a mail until the SMTP server accepts it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        deliveryExecutor.shutdown();
+    }
+
+    public void wakeUp() {
+        deliveryExecutor.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-ms:5000}")
+    public void poll() {
+        depth.set(mailOutbox.countPending());
+        for (int i = 0; i < concurrency; i++) wakeUp();
+    }
+
+    /** Deletes the sent mails in batches, each in its own short transaction **/
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:3600000}", initialDelayString = "${mail.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime sentBefore = LocalDateTime.now().minusNanos(retention * 1_000_000);
+        int deletedCount = 0;
+
+        try {
+            int deleted;
+            do {
+                deleted = mailOutbox.purgeSent(sentBefore, purgeBatchSize);
+                deletedCount += deleted;
+            } while (deleted == purgeBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Unable to purge the sent mails of the outbox", e);
+        }
+
+        if (deletedCount > 0) log.info("Purged {} sent mails from the outbox", deletedCount);
+    }
+
+    private void drain() {
+        try {
+            List<OutboxMail> mails;
+            do {
+                mails = mailOutbox.claim(batchSize, lease);
+                if (!mails.isEmpty()) deliver(mails);
+            } while (mails.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Unable to deliver the mail outbox", e);
+        }
+    }
+
+    private void deliver(List<OutboxMail> mails) {
+        SimpleMailMessage[] messages = mails.stream().map(MailOutboxWorker::toMessage).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+
+        try {
+            // one connection is opened for the whole batch
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) Arrays.stream(messages).forEach(message -> failures.put(message, e));
+        } catch (MailException e) {
+            Arrays.stream(messages).forEach(message -> failures.put(message, e));
+        }
+
+        List<OutboxMail> sentMails = new ArrayList<>();
+        Map<OutboxMail, String> failedMails = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = failures.get(messages[i]);
+
+            if (failure == null) {
+                sentMails.add(mails.get(i));
+                deliveryLatency.record(Duration.between(mails.get(i).getCreatedAt(), now));
+            } else {
+                failedMails.put(mails.get(i), failure.getMessage());
+            }
+        }
+
+        if (!failedMails.isEmpty()) log.warn("Unable to deliver {} of {} mails, they are retried later", failedMails.size(), mails.size());
+        mailOutbox.complete(sentMails, failedMails);
+    }
+
+    private static SimpleMailMessage toMessage(OutboxMail mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getText());
+        return message;
+    }
+}
@@ -1,75 +1,43 @@
 package me.artemiyulyanov.uptodate.mail;
 
-import jakarta.mail.internet.MimeMessage;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
-import jakarta.validation.constraints.Email;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.security.SecureRandom;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.EnumMap;
-import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @Transactional
 public class MailService {
     public static final Duration VERIFICATION_CODE_EXPIRATION = Duration.ofMinutes(15);
 
-    @Autowired
-    private RedisTemplate<String, EmailVerificationCode> verificationCodes;
+    private static final SecureRandom random = new SecureRandom();
 
     @Autowired
-    private JavaMailSender mailSender;
-
-    public EmailVerificationCode sendCode(String email, List<EmailVerificationCode.Credential> credentials) {
-        if (isCodeSent(email)) {
-            verificationCodes.delete(email);
-        }
-
-        EmailVerificationCode verificationCode = EmailVerificationCode.builder()
-                .email(email)
-                .code(Integer.toString(generateRandomCode()))
-                .credentials(credentials)
-                .build();
-        verificationCodes.opsForValue().set(email, verificationCode, VERIFICATION_CODE_EXPIRATION);
-
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setSubject("Verification code");
-        message.setText(String.format("Hi! Your verification code is: %s. Enter it to get authenticated", verificationCode.getCode()));
-        mailSender.send(message);
-
-        return verificationCode;
-    }
-
-    public EmailVerificationCode getVerificationCode(String email) {
-        return verificationCodes.opsForValue().get(email);
-    }
+    private VerificationCodeStore verificationCodeStore;
 
-    public boolean enterCode(String email, String code) {
-        if (validateCode(email, code)) {
-            verificationCodes.delete(email);
-            return true;
-        }
+    @Autowired
+    private MailOutbox mailOutbox;
 
-        return false;
-    }
+    /** Sends a new code to the email, the payload is handed back once the code is entered **/
+    @Timed(value = "mail.send-code", histogram = true)
+    public void sendCode(String email, byte[] payload) {
+        String code = Integer.toString(generateRandomCode());
 
-    public boolean validateCode(String email, String code) {
-        return isCodeSent(email) && Objects.requireNonNull(verificationCodes.opsForValue().get(email)).getCode().equals(code);
+        verificationCodeStore.issue(email, code, payload, VERIFICATION_CODE_EXPIRATION.toMillis());
+        mailOutbox.enqueue(email, "Verification code", String.format("Hi! Your verification code is: %s. Enter it to get authenticated", code));
     }
 
-    public boolean isCodeSent(String email) {
-        return Boolean.TRUE.equals(verificationCodes.hasKey(email));
+    /** Checks and uses up the code in one step. Empty if the code is wrong, expired or has been tried too many times **/
+    public Optional<byte[]> enterCode(String email, String code) {
+        if (email == null || code == null) return Optional.empty();
+        return verificationCodeStore.consume(email, code);
     }
 
     private int generateRandomCode() {
-        return (int) (Math.random() * 899999) + 100000;
+        return random.nextInt(900000) + 100000;
     }
-}
\ No newline at end of file
+}
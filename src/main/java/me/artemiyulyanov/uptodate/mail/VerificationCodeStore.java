@@ -0,0 +1,71 @@
+package me.artemiyulyanov.uptodate.mail;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The pending verification codes, one Redis hash per email holding the code, the failed attempts and the payload
+ * to hand over once the code is entered. Checking a code is a single script: the right code returns the payload
+ * and removes the key, a wrong one counts the attempt and removes the key once max-attempts is reached.
+ */
+@Component
+public class VerificationCodeStore {
+    private static final String KEY_PREFIX = "verification:";
+
+    private static final RedisScript<Void> ISSUE_SCRIPT = RedisScript.of("""
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0, 'payload', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            """);
+
+    private static final RedisScript<byte[]> CONSUME_SCRIPT = RedisScript.of("""
+            local code = redis.call('HGET', KEYS[1], 'code')
+            if not code then return false end
+            if code == ARGV[1] then
+                local payload = redis.call('HGET', KEYS[1], 'payload')
+                redis.call('DEL', KEYS[1])
+                return payload
+            end
+            if redis.call('HINCRBY', KEYS[1], 'attempts', 1) >= tonumber(ARGV[2]) then redis.call('DEL', KEYS[1]) end
+            return false
+            """, byte[].class);
+
+    @Autowired
+    private RedisTemplate<String, byte[]> verificationCodeRedisTemplate;
+
+    @Value("${mail.verification.max-attempts:5}")
+    private int maxAttempts;
+
+    /** Replaces the code sent to the email before, if any **/
+    public void issue(String email, String code, byte[] payload, long ttlMillis) {
+        verificationCodeRedisTemplate.execute(ISSUE_SCRIPT, List.of(getKey(email)), bytes(code), payload, bytes(Long.toString(ttlMillis)));
+    }
+
+    /** The payload if the code is right, the code can only be consumed once **/
+    public Optional<byte[]> consume(String email, String code) {
+        return Optional.ofNullable(verificationCodeRedisTemplate.execute(
+                CONSUME_SCRIPT,
+                RedisSerializer.byteArray(),
+                RedisSerializer.byteArray(),
+                List.of(getKey(email)),
+                bytes(code),
+                bytes(Integer.toString(maxAttempts))
+        ));
+    }
+
+    private static String getKey(String email) {
+        return KEY_PREFIX + email.trim().toLowerCase();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package me.artemiyulyanov.uptodate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many statements each request has sent to the database, tagged by the route pattern rather than
+ * the raw path, so the number of series stays bounded. The asynchronous part of a request runs on other threads
+ * and is not counted.
+ */
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+    private final MeterRegistry meterRegistry;
+
+    /** By method and route pattern, so a request only looks its summary up instead of registering it again **/
+    private final Map<String, Map<String, DistributionSummary>> summaries = new ConcurrentHashMap<>();
+
+    public StatementCountInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the async dispatch only writes out the result, the statements have been counted by the first dispatch
+        if (request.getDispatcherType() != DispatcherType.ASYNC) StatementCounter.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(request);
+    }
+
+    private void record(HttpServletRequest request) {
+        long statements = StatementCounter.stop();
+        if (statements < 0) return;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        getSummary(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN").record(statements);
+    }
+
+    private DistributionSummary getSummary(String method, String uri) {
+        return summaries
+                .computeIfAbsent(method, ignored -> new ConcurrentHashMap<>())
+                .computeIfAbsent(uri, ignored -> DistributionSummary.builder("hibernate.statements.per.request")
+                        .description("The SQL statements prepared while handling one request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+}
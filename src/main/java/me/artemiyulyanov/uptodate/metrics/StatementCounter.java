@@ -0,0 +1,29 @@
+package me.artemiyulyanov.uptodate.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a counting scope is open.
+ * The statements of the threads without an open scope (schedulers, async executors) are not counted.
+ */
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<long[]> counter = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = counter.get();
+        if (count != null) count[0]++;
+        return sql;
+    }
+
+    public static void start() {
+        counter.set(new long[1]);
+    }
+
+    /** Closes the scope and returns the number of statements prepared in it, -1 if no scope has been opened **/
+    public static long stop() {
+        long[] count = counter.get();
+        counter.remove();
+        return count != null ? count[0] : -1;
+    }
+}
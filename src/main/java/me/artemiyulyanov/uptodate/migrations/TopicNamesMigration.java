@@ -0,0 +1,51 @@
+package me.artemiyulyanov.uptodate.migrations;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+
+/**
+ * The topic names used to be stored as JSON ({"english": ..., "russian": ...}) in the name and parent columns.
+ * Once Hibernate has added the column per language, the JSON rows not copied yet are copied over. Runs on every startup,
+ * the copy is idempotent, so concurrent nodes do not conflict.
+ *
+ * The old columns are kept for this release, so a node still running the previous version keeps working during a rolling
+ * deploy. Drop them in the next release: ALTER TABLE topics DROP COLUMN name, DROP COLUMN parent
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class TopicNamesMigration {
+    private static final String TABLE = "topics";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (!hasColumn("name") || !hasColumn("parent")) return;
+
+        int migratedRows = jdbcTemplate.update("UPDATE topics SET " +
+                "name_english = JSON_UNQUOTE(JSON_EXTRACT(name, '$.english')), " +
+                "name_russian = JSON_UNQUOTE(JSON_EXTRACT(name, '$.russian')), " +
+                "parent_english = JSON_UNQUOTE(JSON_EXTRACT(parent, '$.english')), " +
+                "parent_russian = JSON_UNQUOTE(JSON_EXTRACT(parent, '$.russian')) " +
+                "WHERE name IS NOT NULL AND name_english IS NULL");
+
+        if (migratedRows > 0) log.info("Copied {} topic names from JSON to a column per language", migratedRows);
+    }
+
+    private boolean hasColumn(String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, TABLE, column)) {
+                return columns.next();
+            }
+        }));
+    }
+}
@@ -0,0 +1,238 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.artemiyulyanov.uptodate.configuration.BlockingExecutorFactory;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The non-blocking counterpart of MinioService for the request paths: the futures are completed by the NIO client,
+ * so no request thread waits for MinIO. The content-addressed bookkeeping is still read from the DB through MediaBlobService,
+ * which blocks: the uploads run it on the executor they are given, the lookups on the I/O executor of this service.
+ * That executor also reads the request bodies for the NIO client, and never runs a task on the caller, which is a Netty thread.
+ */
+@Service
+public class AsyncMinioService {
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    private String bucket;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Autowired
+    private MultipartUploader multipartUploader;
+
+    @Autowired
+    private BlockingExecutorFactory blockingExecutorFactory;
+
+    @Value("${storage.async.io-concurrency:16}")
+    private int ioConcurrency;
+
+    private ExecutorService ioExecutor;
+
+    @PostConstruct
+    public void init() {
+        ioExecutor = blockingExecutorFactory.newQueueingExecutor("storage-io", ioConcurrency);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ioExecutor.shutdown();
+    }
+
+    /** Completes with an empty Optional if there is no such object **/
+    public CompletableFuture<Optional<MinioMediaFile>> getMediaFile(String objectKey) {
+        CompletableFuture<Optional<String>> storedObjectKey = minioService.isContentAddressed()
+                ? CompletableFuture.supplyAsync(() -> mediaBlobService.resolve(objectKey), ioExecutor)
+                : CompletableFuture.completedFuture(Optional.of(objectKey));
+
+        return storedObjectKey.thenCompose(key -> key.isEmpty()
+                ? CompletableFuture.completedFuture(Optional.empty())
+                : getStoredMediaFile(objectKey, key.get()));
+    }
+
+    private CompletableFuture<Optional<MinioMediaFile>> getStoredMediaFile(String objectKey, String storedObjectKey) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(storedObjectKey)
+                .build();
+
+        // completes once the headers have arrived, the body is streamed as the returned stream is read
+        return s3AsyncClient.getObject(request, AsyncResponseTransformer.toBlockingInputStream())
+                .thenApply(response -> Optional.of(
+                        MinioMediaFile.builder()
+                                .inputStream(response)
+                                .objectKey(objectKey)
+                                .contentLength(response.response().contentLength())
+                                .build()
+                ))
+                .exceptionally(e -> {
+                    if (isNotFound(e)) return Optional.empty();
+                    throw new CompletionException(e);
+                });
+    }
+
+    /**
+     * Stores the file like MinioService.storeFile, but sends the bytes through the NIO client: the executor only runs
+     * the DB bookkeeping and the I/O executor reads the spooled file chunk by chunk, no thread waits while MinIO receives the bytes.
+     * The files large enough for a multipart upload still go through MultipartUploader, which sends the parts in parallel.
+     * Completes with false if the object already exists and has been left untouched.
+     */
+    public CompletableFuture<Boolean> storeFile(String objectKey, MultipartFile file, boolean overwrite, ExecutorService executor) {
+        if (multipartUploader.isApplicable(file.getSize())) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return minioService.storeFile(objectKey, file, overwrite);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor);
+        }
+
+        CompletableFuture<Boolean> stored = minioService.isContentAddressed()
+                ? storeContentAddressedFile(objectKey, file, executor)
+                : (overwrite ? CompletableFuture.completedFuture(false) : fileExists(objectKey))
+                        .thenCompose(exists -> exists ? CompletableFuture.completedFuture(false) : putObject(objectKey, file).thenApply(response -> true));
+
+        return stored.thenApply(result -> {
+            if (result) minioService.invalidateListings(objectKey);
+            return result;
+        });
+    }
+
+    private CompletableFuture<Boolean> storeContentAddressedFile(String objectKey, MultipartFile file, ExecutorService executor) {
+        CompletableFuture<String> digest = CompletableFuture.supplyAsync(() -> {
+            try (InputStream inputStream = file.getInputStream()) {
+                return MediaBlobService.digest(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+
+        return digest
+                .thenApplyAsync(blobDigest -> mediaBlobService.bindStored(objectKey, blobDigest), executor)
+                .thenCompose(binding -> binding.isPresent()
+                        ? CompletableFuture.completedFuture(binding.get())
+                        : putObject(MediaBlobService.getBlobKey(digest.join()), file)
+                                .thenApplyAsync(response -> mediaBlobService.register(objectKey, digest.join(), file.getSize(), file.getContentType()), executor))
+                .thenCompose(binding -> binding.unreferencedObjectKey()
+                        .map(storedObjectKey -> deleteObjects(List.of(storedObjectKey)))
+                        .orElseGet(() -> CompletableFuture.completedFuture(null)))
+                .thenApply(ignored -> true);
+    }
+
+    private CompletableFuture<PutObjectResponse> putObject(String storedObjectKey, MultipartFile file) {
+        InputStream inputStream;
+
+        try {
+            inputStream = file.getInputStream();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(storedObjectKey)
+                .contentLength(file.getSize())
+                .contentType(file.getContentType())
+                .acl(ObjectCannedACL.PUBLIC_READ)
+                .build();
+
+        return s3AsyncClient.putObject(request, AsyncRequestBody.fromInputStream(inputStream, file.getSize(), ioExecutor))
+                .whenComplete((response, e) -> {
+                    try {
+                        inputStream.close();
+                    } catch (IOException ignored) {
+                    }
+                });
+    }
+
+    public CompletableFuture<Boolean> fileExists(String objectKey) {
+        if (minioService.isContentAddressed()) return CompletableFuture.supplyAsync(() -> mediaBlobService.exists(objectKey), ioExecutor);
+
+        return s3AsyncClient.headObject(HeadObjectRequest.builder().bucket(bucket).key(objectKey).build())
+                .thenApply(response -> true)
+                .exceptionally(e -> {
+                    if (isNotFound(e)) return false;
+                    throw new CompletionException(e);
+                });
+    }
+
+    public CompletableFuture<List<String>> getFolder(String prefix) {
+        if (minioService.isContentAddressed()) return CompletableFuture.supplyAsync(() -> mediaBlobService.getFolder(prefix), ioExecutor);
+
+        List<String> objectKeys = Collections.synchronizedList(new ArrayList<>());
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix + "/")
+                .build();
+
+        return s3AsyncClient.listObjectsV2Paginator(request)
+                .contents()
+                .subscribe(object -> objectKeys.add(object.key()))
+                .thenApply(ignored -> List.copyOf(objectKeys));
+    }
+
+    public CompletableFuture<Void> deleteFolder(String prefix) {
+        List<String> unreferencedObjectKeys = mediaBlobService.unbindFolder(prefix);
+        minioService.invalidateFolderListings(prefix);
+
+        if (minioService.isContentAddressed()) return deleteObjects(unreferencedObjectKeys);
+
+        return getFolder(prefix).thenCompose(objectKeys -> {
+            Set<String> storedObjectKeys = new LinkedHashSet<>(unreferencedObjectKeys);
+            storedObjectKeys.addAll(objectKeys);
+
+            return deleteObjects(storedObjectKeys);
+        });
+    }
+
+    private CompletableFuture<Void> deleteObjects(Collection<String> objectKeys) {
+        List<ObjectIdentifier> identifiers = objectKeys
+                .stream()
+                .map(objectKey -> ObjectIdentifier.builder().key(objectKey).build())
+                .toList();
+        List<CompletableFuture<DeleteObjectsResponse>> deletions = new ArrayList<>();
+
+        for (int from = 0; from < identifiers.size(); from += MinioService.DELETE_BATCH_SIZE) {
+            DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    .delete(Delete.builder()
+                            .objects(identifiers.subList(from, Math.min(from + MinioService.DELETE_BATCH_SIZE, identifiers.size())))
+                            .quiet(true)
+                            .build())
+                    .build();
+
+            deletions.add(s3AsyncClient.deleteObjects(request));
+        }
+
+        return CompletableFuture.allOf(deletions.toArray(CompletableFuture[]::new));
+    }
+
+    private boolean isNotFound(Throwable e) {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        return cause instanceof NoSuchKeyException || (cause instanceof S3Exception && ((S3Exception) cause).statusCode() == 404);
+    }
+}
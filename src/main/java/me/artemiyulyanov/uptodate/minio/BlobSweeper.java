@@ -0,0 +1,63 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes the blobs which have lost their last reference. Each one is re-checked under a row lock right before
+ * its object is deleted, and only once it has stayed unreferenced for the grace period: an upload which has found
+ * no blob and is still sending the bytes registers it afterwards, so it must not find them deleted.
+ */
+@Component
+@Slf4j
+public class BlobSweeper {
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private String bucket;
+
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Value("${storage.blobs.release-grace-ms:3600000}")
+    private long releaseGrace;
+
+    @Value("${storage.blobs.sweep-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${storage.blobs.sweep-interval-ms:600000}", initialDelayString = "${storage.blobs.sweep-interval-ms:600000}")
+    public void sweep() {
+        LocalDateTime releasedBefore = LocalDateTime.now().minusNanos(releaseGrace * 1_000_000);
+        int deletedCount = 0;
+
+        try {
+            List<String> digests;
+
+            do {
+                digests = mediaBlobService.getUnreferenced(releasedBefore, batchSize);
+
+                for (String digest : digests) {
+                    if (mediaBlobService.deleteIfUnreferenced(digest, releasedBefore, this::deleteObject)) deletedCount++;
+                }
+            } while (digests.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("The sweep of the unreferenced blobs has failed", e);
+        }
+
+        if (deletedCount > 0) log.info("{} unreferenced blobs have been deleted", deletedCount);
+    }
+
+    private void deleteObject(String objectKey) {
+        amazonS3.deleteObject(new DeleteObjectRequest(bucket, objectKey));
+    }
+}
@@ -0,0 +1,43 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The image formats recognized by their leading bytes rather than by the file extension.
+ */
+@Getter
+@AllArgsConstructor
+public enum MediaSignature {
+    PNG(MediaType.IMAGE_PNG, List.of(".png"), List.of(new byte[] {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A})),
+    JPEG(MediaType.IMAGE_JPEG, List.of(".jpg", ".jpeg"), List.of(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})),
+    GIF(MediaType.IMAGE_GIF, List.of(".gif"), List.of("GIF87a".getBytes(StandardCharsets.US_ASCII), "GIF89a".getBytes(StandardCharsets.US_ASCII)));
+
+    /** Enough leading bytes to tell any of the formats apart **/
+    public static final int HEADER_LENGTH = 8;
+
+    private MediaType mediaType;
+    private List<String> extensions;
+    private List<byte[]> magicNumbers;
+
+    public boolean matchesFilename(String filename) {
+        String lowerCaseFilename = filename.toLowerCase();
+        return extensions.stream().anyMatch(lowerCaseFilename::endsWith);
+    }
+
+    public static Optional<MediaSignature> sniff(byte[] header, int length) {
+        return Arrays.stream(values())
+                .filter(signature -> signature.magicNumbers.stream().anyMatch(magicNumber -> startsWith(header, length, magicNumber)))
+                .findFirst();
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magicNumber) {
+        return length >= magicNumber.length && Arrays.equals(header, 0, magicNumber.length, magicNumber, 0, magicNumber.length);
+    }
+}
@@ -8,12 +8,29 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.net.URI;
+import java.time.Duration;
+
+/** The perf profile replaces both clients with the in-memory stubs of src/perf **/
 @Configuration
+@Profile("!perf")
 public class MinioConfig {
     @Value("${cloud.aws.s3.endpoint}")
     private String endpoint;
 
+    /** The endpoint the clients reach MinIO at, which differs from the internal one behind a proxy or in docker-compose **/
+    @Value("${storage.presigned.public-endpoint:${cloud.aws.s3.endpoint}}")
+    private String publicEndpoint;
+
     @Value("${cloud.aws.s3.bucket}")
     private String bucket;
 
@@ -23,6 +40,27 @@ public class MinioConfig {
     @Value("${cloud.aws.s3.secret-key}")
     private String secretKey;
 
+    @Value("${storage.async.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${storage.async.max-pending-acquires:1000}")
+    private int maxPendingAcquires;
+
+    @Value("${storage.async.connection-timeout-ms:2000}")
+    private long connectionTimeout;
+
+    @Value("${storage.async.acquire-timeout-ms:5000}")
+    private long acquireTimeout;
+
+    @Value("${storage.async.read-timeout-ms:30000}")
+    private long readTimeout;
+
+    @Value("${storage.async.write-timeout-ms:30000}")
+    private long writeTimeout;
+
+    @Value("${storage.async.api-call-timeout-ms:60000}")
+    private long apiCallTimeout;
+
     @Bean
     public AmazonS3 amazonS3() {
         return AmazonS3ClientBuilder.standard()
@@ -41,6 +79,38 @@ public class MinioConfig {
                 .build();
     }
 
+    /** The non-blocking client: the connections are multiplexed by the Netty event loop, so waiting for MinIO holds no thread **/
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient() {
+        NettyNioAsyncHttpClient.Builder httpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionTimeout(Duration.ofMillis(connectionTimeout))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeout))
+                .readTimeout(Duration.ofMillis(readTimeout))
+                .writeTimeout(Duration.ofMillis(writeTimeout));
+
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .httpClientBuilder(httpClient)
+                .overrideConfiguration(configuration -> configuration.apiCallTimeout(Duration.ofMillis(apiCallTimeout)))
+                .build();
+    }
+
+    /** Signs the presigned URLs for the public endpoint: SigV4 signs the Host header, so the URL cannot be rewritten afterwards **/
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(publicEndpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+    }
+
     @Bean
     public String bucket() {
         return bucket;
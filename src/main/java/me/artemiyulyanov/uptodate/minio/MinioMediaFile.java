@@ -25,6 +25,9 @@ public class MinioMediaFile {
     private String objectKey;
     private InputStream inputStream;
 
+    /** Null if the length is unknown until the stream is read **/
+    private Long contentLength;
+
     public MediaType getMediaType() {
         return getMediaType(objectKey);
     }
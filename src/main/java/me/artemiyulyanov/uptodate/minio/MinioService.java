@@ -2,89 +2,280 @@ package me.artemiyulyanov.uptodate.minio;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PostConstruct;
 import me.artemiyulyanov.uptodate.models.Article;
 import me.artemiyulyanov.uptodate.models.ArticleComment;
 import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * The operations reaching MinIO or the blob table are timed as storage.operation, tagged by the method. The streams are timed
+ * until they are returned, not consumed. The presigned URLs, the cached and the lazy listings do no I/O of their own and are not timed.
+ * The presigned URLs are signed by a client of their own, built on the endpoint the clients reach MinIO at.
+ */
 @Service
 public class MinioService {
+    public static final int DELETE_BATCH_SIZE = 1000;
+    private static final String OPERATION_TIMER = "storage.operation";
+
     @Autowired
     private AmazonS3 amazonS3;
 
+    @Autowired
+    private S3Presigner s3Presigner;
+
     @Autowired
     private String bucket;
 
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Autowired
+    private MultipartUploader multipartUploader;
+
+    @Value("${storage.content-addressed:false}")
+    private boolean contentAddressed;
+
+    @Value("${storage.listing.cache-ttl-ms:5000}")
+    private long listingCacheTtl;
+
+    @Value("${storage.listing.cache-size:10000}")
+    private long listingCacheSize;
+
+    /** Short-lived folder listings, dropped as soon as anything under the prefix is written or deleted through this service **/
+    private Cache<String, List<String>> folderCache;
+
     @PostConstruct
     public void init() {
+        folderCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(listingCacheTtl))
+                .maximumSize(listingCacheSize)
+                .build();
+
         if (!amazonS3.doesBucketExistV2(bucket)) {
             amazonS3.createBucket(bucket);
         }
     }
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public boolean uploadFile(String objectKey, MultipartFile file) {
-        if(amazonS3.doesObjectExist(bucket, objectKey)) return false;
+        try {
+            return storeFile(objectKey, file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public boolean storeFile(String objectKey, MultipartFile file) throws IOException {
+        return storeFile(objectKey, file, false);
+    }
+
+    /** Returns false if the object already exists and has been left untouched **/
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public boolean storeFile(String objectKey, MultipartFile file, boolean overwrite) throws IOException {
+        if (contentAddressed) {
+            storeContentAddressedFile(objectKey, file);
+            invalidateListings(objectKey);
+            return true;
+        }
+
+        if(!overwrite && amazonS3.doesObjectExist(bucket, objectKey)) return false;
+
+        putObject(objectKey, file);
+        invalidateListings(objectKey);
+        return true;
+    }
+
+    /**
+     * The multipart file is already spooled locally, so its digest is computed before anything is sent:
+     * a blob that is stored already costs one DB update and no transfer to MinIO at all.
+     */
+    private void storeContentAddressedFile(String objectKey, MultipartFile file) throws IOException {
+        String digest;
 
         try (InputStream inputStream = file.getInputStream()) {
-            long contentLength = file.getSize();
+            digest = MediaBlobService.digest(inputStream);
+        }
+
+        MediaBlobService.Binding binding = mediaBlobService.bindStored(objectKey, digest).orElse(null);
 
-            PutObjectRequest putObjectRequest = new PutObjectRequest(
-                    bucket,
-                    objectKey,
-                    inputStream,
-                    new ObjectMetadata()
-            );
-            putObjectRequest.getMetadata().setContentLength(contentLength);
+        if (binding == null) {
+            putObject(MediaBlobService.getBlobKey(digest), file);
+            binding = mediaBlobService.register(objectKey, digest, file.getSize(), file.getContentType());
+        }
 
+        binding.unreferencedObjectKey().ifPresent(this::deleteObject);
+    }
+
+    private void putObject(String objectKey, MultipartFile file) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(file.getSize());
+        if (file.getContentType() != null) metadata.setContentType(file.getContentType());
+
+        if (multipartUploader.isApplicable(file.getSize())) {
+            multipartUploader.upload(objectKey, file, metadata);
+            return;
+        }
+
+        try (InputStream inputStream = file.getInputStream()) {
+            PutObjectRequest putObjectRequest = new PutObjectRequest(bucket, objectKey, inputStream, metadata);
             amazonS3.putObject(putObjectRequest.withCannedAcl(CannedAccessControlList.PublicRead));
-            return true;
-        } catch (IOException e) {
-            return false;
         }
     }
 
+    private void deleteObject(String objectKey) {
+        amazonS3.deleteObject(new DeleteObjectRequest(bucket, objectKey));
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public boolean fileExists(String objectKey) {
+        if (contentAddressed) return mediaBlobService.exists(objectKey);
         return amazonS3.doesObjectExist(bucket, objectKey);
     }
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public boolean folderExists(String prefix) {
+        List<String> cachedFolder = folderCache.getIfPresent(prefix);
+        if (cachedFolder != null) return !cachedFolder.isEmpty();
+
+        if (contentAddressed) return mediaBlobService.folderExists(prefix);
+
         ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
                 .withBucketName(bucket)
-                .withPrefix(prefix)
+                .withPrefix(prefix + "/")
                 .withMaxKeys(1);
 
         ObjectListing objectListing = amazonS3.listObjects(listObjectsRequest);
         return !objectListing.getObjectSummaries().isEmpty();
     }
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public void deleteFile(String objectKey) {
+        invalidateListings(objectKey);
+
+        if (contentAddressed) {
+            mediaBlobService.unbind(objectKey).ifPresent(this::deleteObject);
+            return;
+        }
+
+        mediaBlobService.unbind(objectKey);
         if (amazonS3.doesObjectExist(bucket, objectKey)) amazonS3.deleteObject(new DeleteObjectRequest(bucket, objectKey));
     }
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public void deleteFolder(String prefix) {
-        List<DeleteObjectsRequest.KeyVersion> files = getFolder(prefix)
-                .stream()
-                .map(DeleteObjectsRequest.KeyVersion::new)
-                .toList();
+        Set<String> objectKeys = new LinkedHashSet<>(mediaBlobService.unbindFolder(prefix));
+        if (!contentAddressed) streamFolder(prefix).forEach(objectKeys::add);
+
+        invalidateFolderListings(prefix);
+        deleteObjects(List.copyOf(objectKeys));
+    }
+
+    /** Deletes the objects in as few requests as possible: S3 accepts up to 1000 keys in one batch **/
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public void deleteFiles(Collection<String> objectKeys) {
+        List<String> storedObjectKeys = new ArrayList<>();
+        objectKeys.forEach(this::invalidateListings);
+
+        if (contentAddressed) {
+            objectKeys.forEach(objectKey -> mediaBlobService.unbind(objectKey).ifPresent(storedObjectKeys::add));
+        } else {
+            objectKeys.forEach(mediaBlobService::unbind);
+            storedObjectKeys.addAll(objectKeys);
+        }
 
-        DeleteObjectsRequest deleteRequest = new DeleteObjectsRequest(bucket)
-                .withKeys(files)
-                .withQuiet(true);
-        amazonS3.deleteObjects(deleteRequest);
+        deleteObjects(storedObjectKeys);
     }
 
+    /** Deletes the stored objects as they are, bypassing the content-addressed bookkeeping **/
+    void deleteObjects(List<String> storedObjectKeys) {
+        for (int from = 0; from < storedObjectKeys.size(); from += DELETE_BATCH_SIZE) {
+            List<DeleteObjectsRequest.KeyVersion> files = storedObjectKeys
+                    .subList(from, Math.min(from + DELETE_BATCH_SIZE, storedObjectKeys.size()))
+                    .stream()
+                    .map(DeleteObjectsRequest.KeyVersion::new)
+                    .toList();
+
+            amazonS3.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(files).withQuiet(true));
+        }
+    }
+
+    /** Returns the fingerprints of the objects right inside the folder, not descending into its subfolders **/
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public Map<String, ObjectFingerprint> getManifest(String folder) {
+        String prefix = folder + "/";
+        Map<String, ObjectFingerprint> manifest = new LinkedHashMap<>();
+
+        if (contentAddressed) {
+            mediaBlobService.getResources(folder)
+                    .stream()
+                    .filter(resource -> resource.getObjectKey().indexOf('/', prefix.length()) < 0)
+                    .forEach(resource -> manifest.put(resource.getObjectKey(), resource.getBlob() != null
+                            ? new ObjectFingerprint(resource.getBlob().getSize(), resource.getBlob().getDigest())
+                            : new ObjectFingerprint(resource.getSize(), null)));
+            return manifest;
+        }
+
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withPrefix(prefix)
+                .withDelimiter("/");
+        ListObjectsV2Result result;
+
+        do {
+            result = amazonS3.listObjectsV2(request);
+            result.getObjectSummaries().forEach(summary -> manifest.put(summary.getKey(), new ObjectFingerprint(summary.getSize(), summary.getETag())));
+            request.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+
+        return manifest;
+    }
+
+    /** Tells whether the file holds exactly the bytes of the stored object, reading the local copy only if the sizes are equal **/
+    public boolean matches(ObjectFingerprint fingerprint, MultipartFile file) throws IOException {
+        if (fingerprint.getSize() != file.getSize() || fingerprint.getHash() == null) return false;
+
+        try (InputStream inputStream = file.getInputStream()) {
+            String hash = contentAddressed
+                    ? MediaBlobService.digest(inputStream)
+                    : ObjectFingerprint.eTag(inputStream, fingerprint.getHash(), multipartUploader.getPartSize());
+
+            return fingerprint.getHash().equals(hash);
+        }
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public MinioMediaFile getMediaFile(String objectKey) {
+        String storedObjectKey = objectKey;
+
+        if (contentAddressed) {
+            Optional<String> blobKey = mediaBlobService.resolve(objectKey);
+            if (blobKey.isEmpty()) return null;
+
+            storedObjectKey = blobKey.get();
+        }
+
         try {
-            S3Object s3Object = amazonS3.getObject(new GetObjectRequest(bucket, objectKey));
+            S3Object s3Object = amazonS3.getObject(new GetObjectRequest(bucket, storedObjectKey));
 
             return MinioMediaFile
                     .builder()
@@ -96,17 +287,73 @@ public class MinioService {
         }
     }
 
+    /** The object gets no PublicRead ACL and its content is not checked, unlike the uploads going through the server **/
+    public URL generatePresignedUploadUrl(String objectKey, String contentType, Date expiration) {
+        return s3Presigner.presignPutObject(presign -> presign
+                .signatureDuration(getSignatureDuration(expiration))
+                .putObjectRequest(request -> request.bucket(bucket).key(objectKey).contentType(contentType))
+        ).url();
+    }
+
+    public Optional<URL> generatePresignedDownloadUrl(String objectKey, Date expiration) {
+        Optional<String> storedObjectKey = contentAddressed ? mediaBlobService.resolve(objectKey) : Optional.of(objectKey);
+
+        return storedObjectKey.map(key -> s3Presigner.presignGetObject(presign -> presign
+                .signatureDuration(getSignatureDuration(expiration))
+                .getObjectRequest(request -> request.bucket(bucket).key(key))
+        ).url());
+    }
+
+    private Duration getSignatureDuration(Date expiration) {
+        return Duration.between(Instant.now(), expiration.toInstant());
+    }
+
+    /** Records the object which has been uploaded by a client through a presigned URL. Returns false if there is no such object **/
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public boolean completeDirectUpload(String objectKey, long maxSize) {
+        ObjectMetadata metadata;
+
+        try {
+            metadata = amazonS3.getObjectMetadata(bucket, objectKey);
+        } catch (AmazonS3Exception e) {
+            return false;
+        }
+
+        if (metadata.getContentLength() > maxSize) {
+            deleteObject(objectKey);
+            return false;
+        }
+
+        mediaBlobService.bindDirect(objectKey, metadata.getContentLength());
+        invalidateListings(objectKey);
+        return true;
+    }
+
+    /** Returns all the keys in the folder, served from the listing cache for a few seconds after the first call **/
     public List<String> getFolder(String prefix) {
-        ListObjectsV2Result result = amazonS3.listObjectsV2(
-                new ListObjectsV2Request()
-                        .withBucketName(bucket)
-                        .withPrefix(prefix)
-        );
-
-        return result.getObjectSummaries()
-                .stream()
-                .map(S3ObjectSummary::getKey)
-                .toList();
+        return folderCache.get(prefix, key -> streamFolder(key).toList());
+    }
+
+    /** Lists the keys in the folder lazily, page by page, bypassing the cache. The prefix is the folder without its trailing slash **/
+    public Stream<String> streamFolder(String prefix) {
+        if (contentAddressed) return mediaBlobService.getFolder(prefix).stream();
+
+        Iterator<S3ObjectSummary> objects = new ObjectSummaryIterator(amazonS3, bucket, prefix + "/");
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(S3ObjectSummary::getKey);
+    }
+
+    void invalidateListings(String objectKey) {
+        folderCache.asMap().keySet().removeIf(cachedPrefix -> objectKey.startsWith(cachedPrefix + "/"));
+    }
+
+    /** Drops the listings of the folder, of its subfolders and of the folders containing it **/
+    void invalidateFolderListings(String prefix) {
+        folderCache.asMap().keySet().removeIf(cachedPrefix -> (cachedPrefix + "/").startsWith(prefix + "/") || (prefix + "/").startsWith(cachedPrefix + "/"));
+    }
+
+    boolean isContentAddressed() {
+        return contentAddressed;
     }
 
 //    public void saveArticleResources(Article article, List<MultipartFile> resources) {
@@ -0,0 +1,116 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.artemiyulyanov.uptodate.configuration.BlockingExecutorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Sends large files as S3 multipart uploads with the parts in parallel. Every part opens its own stream of the
+ * multipart file and skips to its offset, so nothing but the SDK's small retry buffer is held in memory.
+ */
+@Component
+public class MultipartUploader {
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private String bucket;
+
+    @Value("${storage.upload.multipart-threshold:16777216}")
+    private long multipartThreshold;
+
+    @Value("${storage.upload.part-size:8388608}")
+    private long partSize;
+
+    @Value("${storage.upload.part-concurrency:8}")
+    private int partConcurrency;
+
+    /** Virtual threads when they are enabled, see ThreadingConfig **/
+    @Autowired
+    private BlockingExecutorFactory blockingExecutorFactory;
+
+    private ExecutorService partExecutor;
+
+    @PostConstruct
+    public void init() {
+        partExecutor = blockingExecutorFactory.newExecutor("upload-part", partConcurrency, partConcurrency * 4);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        partExecutor.shutdown();
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public boolean isApplicable(long contentLength) {
+        return contentLength >= multipartThreshold;
+    }
+
+    public void upload(String objectKey, MultipartFile file, ObjectMetadata metadata) throws IOException {
+        InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, objectKey, metadata)
+                .withCannedACL(CannedAccessControlList.PublicRead);
+        String uploadId = amazonS3.initiateMultipartUpload(initiateRequest).getUploadId();
+
+        long contentLength = file.getSize();
+        int partsCount = (int) ((contentLength + partSize - 1) / partSize);
+        List<CompletableFuture<PartETag>> parts = new ArrayList<>(partsCount);
+
+        for (int partNumber = 1; partNumber <= partsCount; partNumber++) {
+            long offset = (partNumber - 1) * partSize;
+            long length = Math.min(partSize, contentLength - offset);
+            int currentPartNumber = partNumber;
+
+            parts.add(CompletableFuture.supplyAsync(() -> uploadPart(objectKey, uploadId, file, currentPartNumber, offset, length), partExecutor));
+        }
+
+        try {
+            List<PartETag> partETags = parts.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, objectKey, uploadId, partETags));
+        } catch (RuntimeException e) {
+            parts.forEach(part -> part.cancel(true));
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, objectKey, uploadId));
+
+            if (e instanceof CompletionException && e.getCause() instanceof UncheckedIOException ioException) {
+                throw ioException.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private PartETag uploadPart(String objectKey, String uploadId, MultipartFile file, int partNumber, long offset, long length) {
+        try (InputStream inputStream = file.getInputStream()) {
+            inputStream.skipNBytes(offset);
+
+            UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                    .withBucketName(bucket)
+                    .withKey(objectKey)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withPartSize(length)
+                    .withInputStream(inputStream);
+
+            return amazonS3.uploadPart(uploadPartRequest).getPartETag();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * What is known about a stored object without downloading it: its size and hash. The hash is the SHA-256 digest
+ * in the content-addressed mode and the S3 ETag otherwise (MD5 of the bytes, or MD5 of the part MD5s suffixed with
+ * the parts count for multipart uploads). It is null when it cannot be compared.
+ */
+@Getter
+@AllArgsConstructor
+public class ObjectFingerprint {
+    private long size;
+    private String hash;
+
+    public static String eTag(InputStream inputStream, String storedETag, long partSize) throws IOException {
+        int partsSeparator = storedETag.indexOf('-');
+        if (partsSeparator < 0) return md5(inputStream);
+
+        MessageDigest partDigest = getMessageDigest("MD5");
+        MessageDigest eTagDigest = getMessageDigest("MD5");
+        byte[] buffer = new byte[8192];
+        long partBytes = 0;
+        int partsCount = 0;
+        int read;
+
+        while ((read = inputStream.read(buffer)) != -1) {
+            int offset = 0;
+
+            while (offset < read) {
+                int length = (int) Math.min(read - offset, partSize - partBytes);
+                partDigest.update(buffer, offset, length);
+                partBytes += length;
+                offset += length;
+
+                if (partBytes == partSize) {
+                    eTagDigest.update(partDigest.digest());
+                    partBytes = 0;
+                    partsCount++;
+                }
+            }
+        }
+
+        if (partBytes > 0) {
+            eTagDigest.update(partDigest.digest());
+            partsCount++;
+        }
+
+        return HexFormat.of().formatHex(eTagDigest.digest()) + "-" + partsCount;
+    }
+
+    private static String md5(InputStream inputStream) throws IOException {
+        MessageDigest messageDigest = getMessageDigest("MD5");
+
+        try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, messageDigest)) {
+            digestInputStream.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private static MessageDigest getMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not supported by the JVM", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks through all the objects under the prefix in the key order, requesting the next page
+ * by the continuation token only when the current one has been consumed.
+ */
+class ObjectSummaryIterator implements Iterator<S3ObjectSummary> {
+    private final AmazonS3 amazonS3;
+    private final ListObjectsV2Request request;
+
+    private Iterator<S3ObjectSummary> page = Collections.emptyIterator();
+    private boolean lastPage = false;
+
+    ObjectSummaryIterator(AmazonS3 amazonS3, String bucket, String prefix) {
+        this.amazonS3 = amazonS3;
+        this.request = new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withPrefix(prefix);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !lastPage) {
+            ListObjectsV2Result result = amazonS3.listObjectsV2(request);
+
+            page = result.getObjectSummaries().iterator();
+            lastPage = !result.isTruncated();
+            request.setContinuationToken(result.getNextContinuationToken());
+        }
+
+        return page.hasNext();
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.next();
+    }
+}
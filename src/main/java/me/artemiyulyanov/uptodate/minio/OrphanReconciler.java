@@ -0,0 +1,247 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+/**
+ * Removes the objects nobody owns anymore: the ones left behind by failed requests or by removed entities.
+ * The bucket is listed page by page and the owners of each batch of keys are looked up with a few IN queries,
+ * so the memory stays bounded by a batch whatever the amount of keys is, and no connection is held during the listing.
+ * The orphans are moved to quarantine/ first (unless configured otherwise) and purged after the retention period.
+ * Deleting objects is destructive, so the reconciliation is off unless storage.reconciliation.enabled is set.
+ */
+@Component
+@Slf4j
+public class OrphanReconciler {
+    public static final String QUARANTINE_FOLDER = "quarantine/";
+
+    private static final String ARTICLES_QUERY = "SELECT id FROM articles WHERE id IN (:ids)";
+    private static final String COMMENTS_QUERY = "SELECT article_id, id FROM articles_comments WHERE id IN (:ids)";
+    private static final String USERS_QUERY = "SELECT id FROM users WHERE id IN (:ids)";
+    private static final String BLOBS_QUERY = "SELECT digest FROM media_blobs WHERE digest IN (:digests)";
+
+    /** A renamed user keeps the folder of the deprecated uploads made under each previous username **/
+    private static final String USERNAMES_QUERY = "SELECT username FROM users WHERE username IN (:usernames) " +
+            "UNION SELECT username FROM users_previous_usernames WHERE username IN (:usernames)";
+
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private String bucket;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${storage.reconciliation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.reconciliation.quarantine:true}")
+    private boolean quarantine;
+
+    /** The usernames were not recorded on a rename before, so such folders are only reclaimed once it is known that none is left **/
+    @Value("${storage.reconciliation.legacy-folders:false}")
+    private boolean legacyFolders;
+
+    @Value("${storage.reconciliation.grace-period-ms:86400000}")
+    private long gracePeriod;
+
+    @Value("${storage.reconciliation.quarantine-retention-ms:2592000000}")
+    private long quarantineRetention;
+
+    @Value("${storage.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${storage.reconciliation.interval-ms:86400000}", initialDelayString = "${storage.reconciliation.initial-delay-ms:600000}")
+    public void reconcile() {
+        if (!enabled) return;
+
+        try {
+            int orphansCount = reconcileOrphans(new Date(System.currentTimeMillis() - gracePeriod));
+            log.info("The storage reconciliation has found {} orphaned objects", orphansCount);
+        } catch (RuntimeException e) {
+            log.error("The storage reconciliation has failed", e);
+        }
+    }
+
+    private int reconcileOrphans(Date threshold) {
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        List<String> candidates = new ArrayList<>();
+        List<String> orphans = new ArrayList<>();
+        List<String> expiredQuarantine = new ArrayList<>();
+        int orphansCount = 0;
+
+        Iterator<S3ObjectSummary> objects = new ObjectSummaryIterator(amazonS3, bucket, "");
+
+        while (objects.hasNext()) {
+            S3ObjectSummary object = objects.next();
+            String objectKey = object.getKey();
+
+            if (objectKey.startsWith(QUARANTINE_FOLDER)) {
+                if (object.getLastModified().getTime() < System.currentTimeMillis() - quarantineRetention) {
+                    expiredQuarantine.add(objectKey);
+                    if (expiredQuarantine.size() == MinioService.DELETE_BATCH_SIZE) purge(expiredQuarantine);
+                }
+                continue;
+            }
+
+            if (!object.getLastModified().before(threshold)) continue;
+
+            candidates.add(objectKey);
+            if (candidates.size() == batchSize) orphansCount += collectOrphans(jdbcTemplate, candidates, orphans);
+        }
+
+        orphansCount += collectOrphans(jdbcTemplate, candidates, orphans);
+        dispose(orphans);
+        purge(expiredQuarantine);
+        return orphansCount;
+    }
+
+    /** Moves the keys of the batch nobody owns to the orphans, disposing of them whenever a deletion batch is full **/
+    private int collectOrphans(NamedParameterJdbcTemplate jdbcTemplate, List<String> candidates, List<String> orphans) {
+        if (candidates.isEmpty()) return 0;
+
+        Owners owners = new Owners(jdbcTemplate, candidates);
+        int orphansCount = 0;
+
+        for (String objectKey : candidates) {
+            if (owners.owns(objectKey)) continue;
+
+            orphans.add(objectKey);
+            orphansCount++;
+            if (orphans.size() == MinioService.DELETE_BATCH_SIZE) dispose(orphans);
+        }
+
+        candidates.clear();
+        return orphansCount;
+    }
+
+    private void dispose(List<String> orphans) {
+        if (orphans.isEmpty()) return;
+
+        if (quarantine) {
+            orphans.forEach(objectKey -> amazonS3.copyObject(bucket, objectKey, bucket, QUARANTINE_FOLDER + objectKey));
+        }
+
+        orphans.stream()
+                .filter(objectKey -> !objectKey.startsWith(MediaBlobService.BLOBS_FOLDER))
+                .forEach(objectKey -> {
+                    mediaBlobService.unbind(objectKey);
+                    minioService.invalidateListings(objectKey);
+                });
+
+        purge(orphans);
+    }
+
+    private void purge(List<String> objectKeys) {
+        if (objectKeys.isEmpty()) return;
+
+        minioService.deleteObjects(objectKeys);
+        objectKeys.clear();
+    }
+
+    /** The owners of one batch of keys, loaded at once. The ids which are not numbers are owned by nobody **/
+    private class Owners {
+        private final Set<String> articles = new HashSet<>();
+        private final Set<String> comments = new HashSet<>();
+        private final Set<String> users = new HashSet<>();
+        private final Set<String> blobs = new HashSet<>();
+        private final Set<String> usernames = new HashSet<>();
+
+        Owners(NamedParameterJdbcTemplate jdbcTemplate, List<String> objectKeys) {
+            Set<Long> articleIds = new HashSet<>();
+            Set<Long> commentIds = new HashSet<>();
+            Set<Long> userIds = new HashSet<>();
+            Set<String> digests = new HashSet<>();
+            Set<String> legacyFolders = new HashSet<>();
+
+            for (String objectKey : objectKeys) {
+                String[] segments = objectKey.split("/", -1);
+                if (segments.length < 2) continue;
+
+                switch (segments[0]) {
+                    case "articles" -> {
+                        if (segments.length >= 5 && segments[2].equals("comments")) {
+                            parseId(segments[3]).ifPresent(commentIds::add);
+                        } else {
+                            parseId(segments[1]).ifPresent(articleIds::add);
+                        }
+                    }
+                    case "users" -> parseId(segments[1]).ifPresent(userIds::add);
+                    case "blobs" -> digests.add(segments[1]);
+                    default -> legacyFolders.add(segments[0]);
+                }
+            }
+
+            if (!articleIds.isEmpty()) {
+                jdbcTemplate.query(ARTICLES_QUERY, Map.of("ids", articleIds), resultSet -> {
+                    articles.add(resultSet.getString(1));
+                });
+            }
+
+            if (!commentIds.isEmpty()) {
+                jdbcTemplate.query(COMMENTS_QUERY, Map.of("ids", commentIds), resultSet -> {
+                    comments.add(resultSet.getString(1) + "/" + resultSet.getString(2));
+                });
+            }
+
+            if (!userIds.isEmpty()) {
+                jdbcTemplate.query(USERS_QUERY, Map.of("ids", userIds), resultSet -> {
+                    users.add(resultSet.getString(1));
+                });
+            }
+
+            if (!digests.isEmpty()) {
+                jdbcTemplate.query(BLOBS_QUERY, Map.of("digests", digests), resultSet -> {
+                    blobs.add(resultSet.getString(1));
+                });
+            }
+
+            if (OrphanReconciler.this.legacyFolders && !legacyFolders.isEmpty()) {
+                jdbcTemplate.query(USERNAMES_QUERY, Map.of("usernames", legacyFolders), resultSet -> {
+                    usernames.add(resultSet.getString(1));
+                });
+            }
+        }
+
+        boolean owns(String objectKey) {
+            String[] segments = objectKey.split("/", -1);
+            if (segments.length < 2) return true;
+
+            return switch (segments[0]) {
+                case "articles" -> segments.length >= 5 && segments[2].equals("comments")
+                        ? comments.contains(segments[1] + "/" + segments[3])
+                        : articles.contains(segments[1]);
+                case "users" -> users.contains(segments[1]);
+                case "blobs" -> blobs.contains(segments[1]);
+                // the deprecated uploads are stored under the username
+                default -> !OrphanReconciler.this.legacyFolders || usernames.contains(segments[0]);
+            };
+        }
+
+        private static Optional<Long> parseId(String segment) {
+            try {
+                return Optional.of(Long.parseLong(segment));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
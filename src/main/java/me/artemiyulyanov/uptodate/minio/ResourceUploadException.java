@@ -0,0 +1,7 @@
+package me.artemiyulyanov.uptodate.minio;
+
+public class ResourceUploadException extends RuntimeException {
+    public ResourceUploadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
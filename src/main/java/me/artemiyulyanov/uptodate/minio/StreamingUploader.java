@@ -0,0 +1,142 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipes an incoming file straight to MinIO one part-sized chunk at a time, so neither memory nor temp disk
+ * grows with the upload. The format is checked by the leading bytes before anything is sent, and the size cap
+ * of the format is enforced while reading: at most one byte over the cap is read before the upload is rejected.
+ * The streamed objects are stored under their own keys and recorded like the direct (presigned) uploads.
+ */
+@Component
+public class StreamingUploader {
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private String bucket;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Autowired
+    private MultipartUploader multipartUploader;
+
+    @Value("${storage.stream.max-size.png:10485760}")
+    private long pngMaxSize;
+
+    @Value("${storage.stream.max-size.jpeg:10485760}")
+    private long jpegMaxSize;
+
+    @Value("${storage.stream.max-size.gif:5242880}")
+    private long gifMaxSize;
+
+    /** Returns the amount of the stored bytes **/
+    public long upload(String objectKey, String filename, InputStream inputStream) throws IOException {
+        byte[] chunk = new byte[(int) multipartUploader.getPartSize()];
+        int headerLength = inputStream.readNBytes(chunk, 0, MediaSignature.HEADER_LENGTH);
+
+        MediaSignature signature = MediaSignature.sniff(chunk, headerLength)
+                .filter(sniffedSignature -> sniffedSignature.matchesFilename(filename))
+                .orElseThrow(() -> new UploadRejectedException(UploadRejectedException.Reason.UNSUPPORTED_TYPE, "The file is not a supported image"));
+        long maxSize = getMaxSize(signature);
+
+        // one byte over the cap is enough to tell the file is too large
+        long limit = maxSize + 1;
+        int chunkLength = headerLength + inputStream.readNBytes(chunk, headerLength, (int) Math.min(chunk.length, limit) - headerLength);
+        long size = checkSize(chunkLength, maxSize);
+
+        if (chunkLength < chunk.length) {
+            putObject(objectKey, signature, chunk, chunkLength);
+        } else {
+            size = putObjectInParts(objectKey, signature, inputStream, chunk, limit, maxSize);
+        }
+
+        mediaBlobService.bindDirect(objectKey, size).ifPresent(storedObjectKey -> amazonS3.deleteObject(bucket, storedObjectKey));
+        minioService.invalidateListings(objectKey);
+        return size;
+    }
+
+    private void putObject(String objectKey, MediaSignature signature, byte[] chunk, int chunkLength) {
+        PutObjectRequest request = new PutObjectRequest(bucket, objectKey, new ByteArrayInputStream(chunk, 0, chunkLength), getMetadata(signature, chunkLength));
+        amazonS3.putObject(request.withCannedAcl(CannedAccessControlList.PublicRead));
+    }
+
+    /** Sends the chunk which has already been read as the first part and keeps reading into the same buffer **/
+    private long putObjectInParts(String objectKey, MediaSignature signature, InputStream inputStream, byte[] chunk, long limit, long maxSize) throws IOException {
+        InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, objectKey, getMetadata(signature, null))
+                .withCannedACL(CannedAccessControlList.PublicRead);
+        String uploadId = amazonS3.initiateMultipartUpload(initiateRequest).getUploadId();
+
+        List<PartETag> partETags = new ArrayList<>();
+        long size = chunk.length;
+        int chunkLength = chunk.length;
+
+        try {
+            while (chunkLength > 0) {
+                partETags.add(uploadPart(objectKey, uploadId, partETags.size() + 1, chunk, chunkLength));
+                if (chunkLength < chunk.length) break;
+
+                chunkLength = inputStream.readNBytes(chunk, 0, (int) Math.min(chunk.length, limit - size));
+                size = checkSize(size + chunkLength, maxSize);
+            }
+
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, objectKey, uploadId, partETags));
+            return size;
+        } catch (IOException | RuntimeException e) {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, objectKey, uploadId));
+            throw e;
+        }
+    }
+
+    private PartETag uploadPart(String objectKey, String uploadId, int partNumber, byte[] chunk, int chunkLength) {
+        UploadPartRequest request = new UploadPartRequest()
+                .withBucketName(bucket)
+                .withKey(objectKey)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withInputStream(new ByteArrayInputStream(chunk, 0, chunkLength))
+                .withPartSize(chunkLength);
+
+        return amazonS3.uploadPart(request).getPartETag();
+    }
+
+    private long checkSize(long size, long maxSize) {
+        if (size > maxSize) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE, "The file exceeds " + maxSize + " bytes");
+        }
+
+        return size;
+    }
+
+    private ObjectMetadata getMetadata(MediaSignature signature, Integer contentLength) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(signature.getMediaType().toString());
+        if (contentLength != null) metadata.setContentLength(contentLength);
+
+        return metadata;
+    }
+
+    private long getMaxSize(MediaSignature signature) {
+        return Map.of(
+                MediaSignature.PNG, pngMaxSize,
+                MediaSignature.JPEG, jpegMaxSize,
+                MediaSignature.GIF, gifMaxSize
+        ).get(signature);
+    }
+}
@@ -0,0 +1,119 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.artemiyulyanov.uptodate.configuration.BlockingExecutorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Uploads a set of resources concurrently through AsyncMinioService, the bounded pool only reads the files and runs
+ * the bookkeeping. The set is attached atomically: if any of the files fails, the ones already written are removed
+ * and ResourceUploadException is thrown.
+ * A folder can also be synchronized with the new set of files: only the added and changed files are uploaded,
+ * and the objects missing from the set are removed in one batch once the uploads have succeeded.
+ */
+@Component
+public class UploadEngine {
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
+    @Value("${storage.upload.concurrency:8}")
+    private int concurrency;
+
+    @Value("${storage.upload.queue-capacity:64}")
+    private int queueCapacity;
+
+    /** Virtual threads when they are enabled, see ThreadingConfig **/
+    @Autowired
+    private BlockingExecutorFactory blockingExecutorFactory;
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        uploadExecutor = blockingExecutorFactory.newExecutor("upload", concurrency, queueCapacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        uploadExecutor.shutdown();
+    }
+
+    /** Completes once the whole set is stored, or exceptionally with ResourceUploadException after the written files are removed **/
+    public CompletableFuture<Void> uploadAll(Map<String, MultipartFile> files) {
+        Map<String, CompletableFuture<Boolean>> uploads = new LinkedHashMap<>();
+        files.forEach((objectKey, file) -> uploads.put(objectKey, asyncMinioService.storeFile(objectKey, file, false, uploadExecutor)));
+
+        return settle(uploads, objectKey -> true);
+    }
+
+    /** Stores a single file like MinioService.storeFile, reading it on the upload pool. Completes with false if the object already exists **/
+    public CompletableFuture<Boolean> upload(String objectKey, MultipartFile file) {
+        return asyncMinioService.storeFile(objectKey, file, false, uploadExecutor);
+    }
+
+    public CompletableFuture<Void> synchronize(String folder, Map<String, MultipartFile> files) {
+        return CompletableFuture.supplyAsync(() -> minioService.getManifest(folder), uploadExecutor).thenCompose(manifest -> {
+            Map<String, CompletableFuture<Boolean>> uploads = new LinkedHashMap<>();
+            files.forEach((objectKey, file) -> uploads.put(objectKey, storeIfChanged(objectKey, file, manifest.get(objectKey))));
+
+            // the overwritten objects cannot be brought back, but the old set stays complete otherwise
+            return settle(uploads, objectKey -> !manifest.containsKey(objectKey)).thenRunAsync(() -> {
+                List<String> removedObjectKeys = manifest.keySet()
+                        .stream()
+                        .filter(objectKey -> !files.containsKey(objectKey))
+                        .toList();
+
+                if (!removedObjectKeys.isEmpty()) minioService.deleteFiles(removedObjectKeys);
+            }, uploadExecutor);
+        });
+    }
+
+    /** Runs a blocking storage task on the upload pool instead of the calling thread **/
+    public CompletableFuture<Void> execute(Runnable task) {
+        return CompletableFuture.runAsync(task, uploadExecutor);
+    }
+
+    private CompletableFuture<Void> settle(Map<String, CompletableFuture<Boolean>> uploads, Predicate<String> rollbackable) {
+        return CompletableFuture.allOf(uploads.values().toArray(CompletableFuture[]::new)).handleAsync((ignored, e) -> {
+            if (e == null) return null;
+
+            List<String> writtenObjectKeys = uploads.entrySet()
+                    .stream()
+                    .filter(upload -> !upload.getValue().isCompletedExceptionally() && upload.getValue().join())
+                    .map(Map.Entry::getKey)
+                    .filter(rollbackable)
+                    .toList();
+
+            if (!writtenObjectKeys.isEmpty()) minioService.deleteFiles(writtenObjectKeys);
+            throw new ResourceUploadException("Unable to upload the resources", e instanceof CompletionException ? e.getCause() : e);
+        }, uploadExecutor);
+    }
+
+    private CompletableFuture<Boolean> storeIfChanged(String objectKey, MultipartFile file, ObjectFingerprint fingerprint) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fingerprint != null && minioService.matches(fingerprint, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, uploadExecutor).thenCompose(unchanged -> unchanged
+                ? CompletableFuture.completedFuture(false)
+                : asyncMinioService.storeFile(objectKey, file, true, uploadExecutor));
+    }
+}
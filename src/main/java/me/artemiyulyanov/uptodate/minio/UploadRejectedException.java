@@ -0,0 +1,17 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import lombok.Getter;
+
+@Getter
+public class UploadRejectedException extends RuntimeException {
+    private final Reason reason;
+
+    public UploadRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public enum Reason {
+        UNSUPPORTED_TYPE, TOO_LARGE;
+    }
+}
@@ -1,7 +1,9 @@
 package me.artemiyulyanov.uptodate.minio.resources;
 
 import lombok.*;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.models.ArticleComment;
 import me.artemiyulyanov.uptodate.repositories.ArticleCommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,7 +11,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 @Setter
@@ -26,41 +31,34 @@ public class ArticleCommentResourceManager implements ResourceManager<ArticleCom
     @Autowired
     private MinioService minioService;
 
-    @Override
-    public void uploadResources(ArticleComment comment, List<MultipartFile> files) {
-        if (files != null) {
-//            List<String> objectKeys = files
-//                    .stream()
-//                    .map(file -> getResourceFolder(comment) + File.separator + file.getOriginalFilename())
-//                    .toList();
-
-            files.forEach(file -> minioService.uploadFile(getResourceFolder(comment) + File.separator + file.getOriginalFilename(), file));
-
-//            comment.setResources(objectKeys);
-//            articleCommentRepository.save(comment);
-        }
-    }
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
+    @Autowired
+    private UploadEngine uploadEngine;
 
     @Override
-    public void updateResources(ArticleComment comment, List<MultipartFile> files) {
-        deleteResources(comment);
+    public CompletableFuture<Void> uploadResources(ArticleComment comment, List<MultipartFile> files) {
+        if (files == null) return CompletableFuture.completedFuture(null);
 
-        if (files != null) {
-//            List<String> objectKeys = files
-//                    .stream()
-//                    .map(file -> getResourceFolder(comment) + File.separator + file.getOriginalFilename())
-//                    .toList();
+//        List<String> objectKeys = files
+//                .stream()
+//                .map(file -> getResourceFolder(comment) + File.separator + file.getOriginalFilename())
+//                .toList();
+//        comment.setResources(objectKeys);
+//        articleCommentRepository.save(comment);
 
-            files.forEach(file -> minioService.uploadFile(getResourceFolder(comment) + File.separator + file.getOriginalFilename(), file));
+        return uploadEngine.uploadAll(getObjectKeys(comment, files));
+    }
 
-//            comment.setResources(objectKeys);
-//            articleCommentRepository.save(comment);
-        }
+    @Override
+    public CompletableFuture<Void> updateResources(ArticleComment comment, List<MultipartFile> files) {
+        return uploadEngine.synchronize(getResourceFolder(comment), files != null ? getObjectKeys(comment, files) : Map.of());
     }
 
     @Override
-    public void deleteResources(ArticleComment comment) {
-        if (minioService.folderExists(getResourceFolder(comment))) minioService.deleteFolder(getResourceFolder(comment));
+    public CompletableFuture<Void> deleteResources(ArticleComment comment) {
+        return asyncMinioService.deleteFolder(getResourceFolder(comment));
     }
 
     @Override
@@ -72,4 +70,11 @@ public class ArticleCommentResourceManager implements ResourceManager<ArticleCom
     public List<String> getResources(ArticleComment comment) {
         return minioService.getFolder(getResourceFolder(comment));
     }
+
+    private Map<String, MultipartFile> getObjectKeys(ArticleComment comment, List<MultipartFile> files) {
+        Map<String, MultipartFile> objectKeys = new LinkedHashMap<>();
+        files.forEach(file -> objectKeys.put(getResourceFolder(comment) + File.separator + file.getOriginalFilename(), file));
+
+        return objectKeys;
+    }
 }
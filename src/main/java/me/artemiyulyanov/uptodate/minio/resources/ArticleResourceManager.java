@@ -1,14 +1,19 @@
 package me.artemiyulyanov.uptodate.minio.resources;
 
 import lombok.*;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.models.Article;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 @Setter
@@ -22,25 +27,26 @@ public class ArticleResourceManager implements ResourceManager<Article> {
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
+    @Autowired
+    private UploadEngine uploadEngine;
+
     @Override
-    public void uploadResources(Article article, List<MultipartFile> files) {
-        if (files != null) {
-            files.forEach(file -> minioService.uploadFile(getResourceFolder(article) + File.separator + file.getOriginalFilename(), file));
-        }
+    public CompletableFuture<Void> uploadResources(Article article, List<MultipartFile> files) {
+        if (files == null) return CompletableFuture.completedFuture(null);
+        return uploadEngine.uploadAll(getObjectKeys(article, files));
     }
 
     @Override
-    public void updateResources(Article article, List<MultipartFile> files) {
-        deleteResources(article);
-
-        if (files != null) {
-            files.forEach(file -> minioService.uploadFile(getResourceFolder(article) + File.separator + file.getOriginalFilename(), file));
-        }
+    public CompletableFuture<Void> updateResources(Article article, List<MultipartFile> files) {
+        return uploadEngine.synchronize(getResourceFolder(article), files != null ? getObjectKeys(article, files) : Map.of());
     }
 
     @Override
-    public void deleteResources(Article article) {
-        if (minioService.folderExists(getResourceFolder(article))) minioService.deleteFolder(getResourceFolder(article));
+    public CompletableFuture<Void> deleteResources(Article article) {
+        return asyncMinioService.deleteFolder(getResourceFolder(article));
     }
 
     @Override
@@ -52,4 +58,11 @@ public class ArticleResourceManager implements ResourceManager<Article> {
     public List<String> getResources(Article article) {
         return minioService.getFolder(getResourceFolder(article));
     }
+
+    private Map<String, MultipartFile> getObjectKeys(Article article, List<MultipartFile> files) {
+        Map<String, MultipartFile> objectKeys = new LinkedHashMap<>();
+        files.forEach(file -> objectKeys.put(getResourceFolder(article) + File.separator + file.getOriginalFilename(), file));
+
+        return objectKeys;
+    }
 }
\ No newline at end of file
@@ -3,11 +3,12 @@ package me.artemiyulyanov.uptodate.minio.resources;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ResourceManager<T> {
-    void uploadResources(T entity, List<MultipartFile> files);
-    void updateResources(T entity, List<MultipartFile> files);
-    void deleteResources(T entity);
+    CompletableFuture<Void> uploadResources(T entity, List<MultipartFile> files);
+    CompletableFuture<Void> updateResources(T entity, List<MultipartFile> files);
+    CompletableFuture<Void> deleteResources(T entity);
 
     String getResourceFolder(T entity);
     List<String> getResources(T entity);
@@ -1,7 +1,9 @@
 package me.artemiyulyanov.uptodate.minio.resources;
 
 import lombok.*;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.models.User;
 import me.artemiyulyanov.uptodate.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 @Setter
@@ -23,36 +27,39 @@ public class UserResourceManager implements ResourceManager<User> {
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
+    @Autowired
+    private UploadEngine uploadEngine;
+
     @Autowired
     private UserRepository userRepository;
 
     @Override
-    public void uploadResources(User user, List<MultipartFile> files) {
+    public CompletableFuture<Void> uploadResources(User user, List<MultipartFile> files) {
         MultipartFile icon = files.get(0);
+        if (icon == null) return CompletableFuture.completedFuture(null);
 
-        if (icon != null) {
-            String iconObjectKey = getResourceFolder(user) + File.separator + icon.getOriginalFilename();
-            minioService.uploadFile(iconObjectKey, icon);
-
+        String iconObjectKey = getResourceFolder(user) + File.separator + icon.getOriginalFilename();
+        return uploadEngine.uploadAll(Map.of(iconObjectKey, icon)).thenRun(() -> {
             user.setIcon(iconObjectKey);
             userRepository.save(user);
-        }
+        });
     }
 
     @Override
-    public void updateResources(User user, List<MultipartFile> files) {
-        deleteResources(user);
+    public CompletableFuture<Void> updateResources(User user, List<MultipartFile> files) {
         MultipartFile icon = files.get(0);
+        if (icon == null) return uploadEngine.synchronize(getResourceFolder(user), Map.of());
 
-        if (icon != null) {
-            String iconObjectKey = getResourceFolder(user) + File.separator + icon.getOriginalFilename();
-            minioService.uploadFile(iconObjectKey, icon);
-        }
+        String iconObjectKey = getResourceFolder(user) + File.separator + icon.getOriginalFilename();
+        return uploadEngine.synchronize(getResourceFolder(user), Map.of(iconObjectKey, icon));
     }
 
     @Override
-    public void deleteResources(User user) {
-        if (minioService.folderExists(getResourceFolder(user))) minioService.deleteFolder(getResourceFolder(user));
+    public CompletableFuture<Void> deleteResources(User user) {
+        return asyncMinioService.deleteFolder(getResourceFolder(user));
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import me.artemiyulyanov.uptodate.models.listeners.ArticleListener;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
 import java.time.LocalDateTime;
@@ -15,6 +16,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "articles")
+@EntityListeners(ArticleListener.class)
 @Getter
 @Setter
 @Builder
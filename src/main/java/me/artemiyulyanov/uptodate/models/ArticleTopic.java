@@ -3,40 +3,64 @@ package me.artemiyulyanov.uptodate.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
-import me.artemiyulyanov.uptodate.models.converters.TranslativeStringConvertor;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
 import me.artemiyulyanov.uptodate.models.text.TranslativeString;
+import me.artemiyulyanov.uptodate.services.ArticleTopicService;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "topics")
+@Table(
+        name = "topics",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"name_english", "name_russian"}),
+        indexes = {
+                @Index(columnList = "name_russian"),
+                @Index(columnList = "parent_english"),
+                @Index(columnList = "parent_russian")
+        }
+)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.TOPICS_REGION)
 @Builder
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class ArticleTopic {
+    @Setter
+    private static ArticleTopicService articleTopicService;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Transient
-    private int count;
-
-    @Convert(converter = TranslativeStringConvertor.class)
+    @Embedded
+    @AttributeOverride(name = "english", column = @Column(name = "parent_english"))
+    @AttributeOverride(name = "russian", column = @Column(name = "parent_russian"))
     private TranslativeString parent;
 
-    @Convert(converter = TranslativeStringConvertor.class)
-    @Column(unique = true)
+    @Embedded
+    @AttributeOverride(name = "english", column = @Column(name = "name_english"))
+    @AttributeOverride(name = "russian", column = @Column(name = "name_russian"))
     private TranslativeString name;
 
     @JsonIgnore
     @ManyToMany(mappedBy = "topics")
     private Set<Article> articles = new HashSet<>();
 
+    /** The same few names are joined into thousands of loaded articles, each of them keeps the shared instance **/
+    @PostLoad
+    private void internNames() {
+        parent = TranslativeString.intern(parent);
+        name = TranslativeString.intern(name);
+    }
+
+    /** Answered from the counts cached by ArticleTopicService, the articles themselves are never loaded **/
     public int getCount() {
-        return articles.size();
+        return articleTopicService != null ? articleTopicService.getArticlesCount(id) : 0;
     }
 
     public static ArticleTopic of(String englishParent, String russianParent, String englishName, String russianName) {
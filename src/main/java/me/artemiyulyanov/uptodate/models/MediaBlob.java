@@ -0,0 +1,30 @@
+package me.artemiyulyanov.uptodate.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_blobs")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaBlob {
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    private long size;
+    private String contentType;
+
+    @Column(name = "ref_count")
+    private int referencesCount;
+
+    private LocalDateTime createdAt;
+
+    /** When the last reference was released, the blob is deleted once it has stayed unreferenced long enough **/
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,31 @@
+package me.artemiyulyanov.uptodate.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_resources")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaResource {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, length = 512)
+    private String objectKey;
+
+    /** Is null for the objects uploaded directly to their own key through a presigned URL **/
+    @ManyToOne
+    @JoinColumn(name = "blob_digest")
+    private MediaBlob blob;
+
+    private Long size;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package me.artemiyulyanov.uptodate.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/** A username the user has had before: the deprecated uploads made under it are still stored in its folder **/
+@Entity
+@Table(name = "users_previous_usernames")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PreviousUsername {
+    @Id
+    private String username;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    private LocalDateTime renamedAt;
+}
@@ -2,9 +2,14 @@ package me.artemiyulyanov.uptodate.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.ROLES_REGION)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
+import me.artemiyulyanov.uptodate.models.listeners.UserListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -13,6 +17,9 @@ import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
+@EntityListeners(UserListener.class)
 @Getter
 @Setter
 @Builder
@@ -31,6 +38,11 @@ public class User {
 
     private String firstName, lastName, icon;
 
+    /** Raising the version revokes every token issued before **/
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ArticleLike> likes = new HashSet<>();
 
@@ -38,6 +50,7 @@ public class User {
     private Set<ArticleComment> likedComments = new HashSet<>();
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_ROLES_REGION)
     private Set<Role> roles;
 
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,13 @@
+package me.artemiyulyanov.uptodate.models.listeners;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever an article is created, removed or has its topics replaced, so that the article counts of the topics are recomputed.
+ */
+@Getter
+@AllArgsConstructor
+public class ArticleChangedEvent {
+    private Long articleId;
+}
@@ -0,0 +1,22 @@
+package me.artemiyulyanov.uptodate.models.listeners;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import me.artemiyulyanov.uptodate.models.Article;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ArticleListener {
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onArticleChanged(Article article) {
+        applicationEventPublisher.publishEvent(new ArticleChangedEvent(article.getId()));
+    }
+}
@@ -0,0 +1,14 @@
+package me.artemiyulyanov.uptodate.models.listeners;
+
+import me.artemiyulyanov.uptodate.models.ArticleTopic;
+import me.artemiyulyanov.uptodate.services.ArticleTopicService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ArticleTopicListener {
+    @Autowired
+    public ArticleTopicListener(ArticleTopicService articleTopicService) {
+        ArticleTopic.setArticleTopicService(articleTopicService);
+    }
+}
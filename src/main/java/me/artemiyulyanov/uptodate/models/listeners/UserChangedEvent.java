@@ -0,0 +1,13 @@
+package me.artemiyulyanov.uptodate.models.listeners;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a user row is updated or removed, so that everything cached about the user is dropped.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private Long userId;
+}
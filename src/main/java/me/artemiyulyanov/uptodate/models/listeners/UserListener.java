@@ -0,0 +1,20 @@
+package me.artemiyulyanov.uptodate.models.listeners;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import me.artemiyulyanov.uptodate.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserListener {
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        applicationEventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    }
+}
@@ -1,20 +1,31 @@
 package me.artemiyulyanov.uptodate.models.text;
 
+import com.github.benmanes.caffeine.cache.Interner;
 import jakarta.persistence.Embeddable;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Getter;
-import lombok.Setter;
+import lombok.*;
 import org.springframework.stereotype.Component;
 
+/**
+ * Stored as one column per language. Never changed once built, so the loaded values can be interned: every entity
+ * holding the same text then shares a single instance.
+ */
 @Component
+@Embeddable
 @Getter
-@Setter
 @Builder
+@EqualsAndHashCode
 @AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class TranslativeString {
+    /** Weak, so the values no entity holds anymore are collected **/
+    private static final Interner<TranslativeString> INTERNER = Interner.newWeakInterner();
+
     private String english, russian;
 
+    public static TranslativeString intern(TranslativeString translativeString) {
+        return translativeString == null ? null : INTERNER.intern(translativeString);
+    }
+
     @Override
     public String toString() {
         return "TranslativeString{" +
@@ -22,4 +33,4 @@ public class TranslativeString {
                 ", russian='" + russian + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
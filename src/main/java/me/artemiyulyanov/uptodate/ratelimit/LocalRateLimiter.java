@@ -0,0 +1,46 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The in-process token bucket for a single node, kept lock-free in the GCRA form: the whole state of a bucket is
+ * the moment it will be full again (the theoretical arrival time), so taking a token is one compare-and-set.
+ * The buckets idle long enough to be full again are evicted.
+ */
+public class LocalRateLimiter implements RateLimiter {
+    private final Map<String, Cache<String, AtomicLong>> buckets = new ConcurrentHashMap<>();
+    private final long maxBuckets;
+
+    public LocalRateLimiter(long maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    @Override
+    public long tryAcquire(RateLimitPolicy policy, String key) {
+        AtomicLong arrivalTime = getBuckets(policy).get(key, ignored -> new AtomicLong(Long.MIN_VALUE));
+        long interval = policy.getIntervalNanos(), burst = policy.getBurstNanos();
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrivalTime.get();
+            long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + interval;
+            long ahead = next - now;
+
+            if (ahead > burst) return ahead - burst;
+            if (arrivalTime.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    private Cache<String, AtomicLong> getBuckets(RateLimitPolicy policy) {
+        return buckets.computeIfAbsent(policy.getName(), ignored -> Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofNanos(policy.getBurstNanos()))
+                .build());
+    }
+}
@@ -0,0 +1,112 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.artemiyulyanov.uptodate.jwt.JWTPrincipal;
+import me.artemiyulyanov.uptodate.web.ApiResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the rate limit policies of the route before the request reaches the controller. Runs after the JWT filter,
+ * so the USER policies count the requests by the id of the authenticated user. The requests over the limit are answered
+ * with 429 and Retry-After; the routes without a policy only pay for the matching. The EMAIL policies read the body,
+ * which is buffered up to maxBodyBytes: these routes are open to anyone, so a larger body is answered with 413.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+    private final List<RateLimitPolicy> policies;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public RateLimitFilter(RateLimiter rateLimiter, List<RateLimitPolicy> policies, ObjectMapper objectMapper, int maxBodyBytes) {
+        this.rateLimiter = rateLimiter;
+        this.policies = List.copyOf(policies);
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String method = request.getMethod();
+        PathContainer path = null;
+        JsonNode body = null;
+        boolean bodyRead = false;
+
+        for (RateLimitPolicy policy : policies) {
+            if (path == null) path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            if (!policy.matches(method, path)) continue;
+
+            if (policy.getKey() == RateLimitKey.EMAIL && !bodyRead) {
+                CachedBodyRequest cachedBodyRequest = new CachedBodyRequest(request, maxBodyBytes);
+                if (cachedBodyRequest.isTooLarge()) {
+                    write(response, HttpStatus.PAYLOAD_TOO_LARGE, "The request is too large!");
+                    return;
+                }
+
+                body = readBody(cachedBodyRequest.getBody());
+                request = cachedBodyRequest;
+                bodyRead = true;
+            }
+
+            long waitNanos = rateLimiter.tryAcquire(policy, getKey(policy.getKey(), request, body));
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String getKey(RateLimitKey key, HttpServletRequest request, JsonNode body) {
+        if (key == RateLimitKey.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof JWTPrincipal principal && principal.getUserId() != null) {
+                return "user:" + principal.getUserId();
+            }
+        }
+
+        if (key == RateLimitKey.EMAIL && body != null && body.path("email").isTextual()) {
+            return "email:" + body.path("email").asText().trim().toLowerCase();
+        }
+
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private JsonNode readBody(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            // the controller answers the malformed body itself, the request is counted by IP meanwhile
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1))));
+        write(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later!");
+    }
+
+    private void write(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.builder()
+                .status(status.value())
+                .message(message)
+                .build());
+    }
+}
@@ -0,0 +1,8 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+/** What the requests are counted by. USER and EMAIL fall back to IP when the request carries neither **/
+public enum RateLimitKey {
+    IP,
+    USER,
+    EMAIL
+}
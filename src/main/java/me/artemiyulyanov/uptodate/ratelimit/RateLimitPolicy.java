@@ -0,0 +1,40 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+import lombok.Getter;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket applied to the requests of one route: at most capacity requests in a burst,
+ * refilled with one token every interval. The bucket is tracked per key, e.g. per user or per IP.
+ */
+@Getter
+public class RateLimitPolicy {
+    private final String name;
+    private final String method;
+    private final PathPattern pattern;
+    private final RateLimitKey key;
+    private final int capacity;
+    private final long intervalNanos;
+
+    public RateLimitPolicy(String name, String method, String pattern, RateLimitKey key, int capacity, int perMinute) {
+        this.name = name;
+        this.method = method;
+        this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+        this.key = key;
+        this.capacity = Math.max(1, capacity);
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+    }
+
+    public boolean matches(String method, PathContainer path) {
+        return this.method.equals(method) && pattern.matches(path);
+    }
+
+    /** How far the bucket may run ahead of the clock before it is empty **/
+    public long getBurstNanos() {
+        return intervalNanos * capacity;
+    }
+}
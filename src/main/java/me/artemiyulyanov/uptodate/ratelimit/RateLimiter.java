@@ -0,0 +1,6 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+public interface RateLimiter {
+    /** Takes one token of the bucket. Returns 0 if the request is allowed, otherwise the nanoseconds until the next token **/
+    long tryAcquire(RateLimitPolicy policy, String key);
+}
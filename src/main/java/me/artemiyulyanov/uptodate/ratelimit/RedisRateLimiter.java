@@ -0,0 +1,56 @@
+package me.artemiyulyanov.uptodate.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The token bucket shared by the whole cluster. The same GCRA step as LocalRateLimiter runs atomically as a script,
+ * with the clock of Redis, so the nodes do not have to agree on time. If Redis is unavailable the requests are
+ * limited by the local buckets of the node instead of being let through unlimited.
+ */
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    /** Returns 0 if the token has been taken, otherwise the microseconds until the next one **/
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local interval = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local arrival = tonumber(redis.call('GET', KEYS[1]) or now)
+            if arrival < now then arrival = now end
+            local ahead = arrival + interval - now
+            if ahead > burst then return ahead - burst end
+            redis.call('SET', KEYS[1], arrival + interval, 'PX', math.ceil(ahead / 1000))
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimiter fallback;
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, RateLimiter fallback) {
+        this.redisTemplate = redisTemplate;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public long tryAcquire(RateLimitPolicy policy, String key) {
+        try {
+            Long waitMicros = redisTemplate.execute(
+                    ACQUIRE_SCRIPT,
+                    List.of(KEY_PREFIX + policy.getName() + ":" + key),
+                    Long.toString(TimeUnit.NANOSECONDS.toMicros(policy.getIntervalNanos())),
+                    Long.toString(TimeUnit.NANOSECONDS.toMicros(policy.getBurstNanos()))
+            );
+            return waitMicros == null ? 0 : TimeUnit.MICROSECONDS.toNanos(waitMicros);
+        } catch (RuntimeException e) {
+            log.warn("Unable to reach Redis to rate limit {}, falling back to the local buckets", policy.getName(), e);
+            return fallback.tryAcquire(policy, key);
+        }
+    }
+}
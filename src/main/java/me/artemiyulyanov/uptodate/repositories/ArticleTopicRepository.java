@@ -1,8 +1,11 @@
 package me.artemiyulyanov.uptodate.repositories;
 
+import jakarta.persistence.QueryHint;
 import me.artemiyulyanov.uptodate.models.ArticleTopic;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +14,19 @@ import java.util.Optional;
 
 @Repository
 public interface ArticleTopicRepository extends JpaRepository<ArticleTopic, Long> {
-    @Query(value = "SELECT * FROM topics WHERE JSON_UNQUOTE(JSON_EXTRACT(parent, '$.english')) = :parent OR JSON_UNQUOTE(JSON_EXTRACT(parent, '$.russian')) = :parent", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<ArticleTopic> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM ArticleTopic t WHERE t.parent.english = :parent OR t.parent.russian = :parent")
     List<ArticleTopic> findByParentInEnglishOrRussian(@Param("parent") String parent);
 
-    @Query(value = "SELECT * FROM topics WHERE JSON_UNQUOTE(JSON_EXTRACT(name, '$.english')) = :name OR JSON_UNQUOTE(JSON_EXTRACT(name, '$.russian')) = :name", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM ArticleTopic t WHERE t.name.english = :name OR t.name.russian = :name")
     Optional<ArticleTopic> findByNameInEnglishOrRussian(@Param("name") String name);
+
+    /** Pairs of the topic id and the number of its articles, the topics without any article are left out **/
+    @Query(value = "SELECT topic_id, COUNT(*) FROM articles_topics GROUP BY topic_id", nativeQuery = true)
+    List<Object[]> countArticlesByTopic();
 }
\ No newline at end of file
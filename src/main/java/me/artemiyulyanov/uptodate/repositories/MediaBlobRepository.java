@@ -0,0 +1,44 @@
+package me.artemiyulyanov.uptodate.repositories;
+
+import jakarta.persistence.LockModeType;
+import me.artemiyulyanov.uptodate.models.MediaBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+    @Modifying
+    @Query("UPDATE MediaBlob b SET b.referencesCount = b.referencesCount + 1, b.releasedAt = NULL WHERE b.digest = :digest")
+    int incrementReferences(@Param("digest") String digest);
+
+    /** Inserts the blob with one reference, or takes one more reference if a concurrent upload has inserted it first **/
+    @Modifying
+    @Query(value = "INSERT INTO media_blobs (digest, size, content_type, ref_count, created_at) VALUES (:digest, :size, :contentType, 1, :createdAt) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, released_at = NULL", nativeQuery = true)
+    int upsert(@Param("digest") String digest, @Param("size") long size, @Param("contentType") String contentType, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("UPDATE MediaBlob b SET b.referencesCount = b.referencesCount - 1 WHERE b.digest = :digest")
+    int decrementReferences(@Param("digest") String digest);
+
+    @Modifying
+    @Query("UPDATE MediaBlob b SET b.releasedAt = :releasedAt WHERE b.digest = :digest AND b.referencesCount <= 0")
+    int markReleased(@Param("digest") String digest, @Param("releasedAt") LocalDateTime releasedAt);
+
+    @Query("SELECT b.digest FROM MediaBlob b WHERE b.referencesCount <= 0 AND b.releasedAt < :releasedBefore ORDER BY b.releasedAt")
+    List<String> findUnreferenced(@Param("releasedBefore") LocalDateTime releasedBefore, Pageable pageable);
+
+    /** Locks the blob if it is still unreferenced, so a concurrent upload taking a reference waits until it is deleted **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.digest = :digest AND b.referencesCount <= 0 AND b.releasedAt < :releasedBefore")
+    Optional<MediaBlob> lockUnreferenced(@Param("digest") String digest, @Param("releasedBefore") LocalDateTime releasedBefore);
+}
@@ -0,0 +1,24 @@
+package me.artemiyulyanov.uptodate.repositories;
+
+import me.artemiyulyanov.uptodate.models.MediaResource;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaResourceRepository extends JpaRepository<MediaResource, Long> {
+    Optional<MediaResource> findByObjectKey(String objectKey);
+
+    boolean existsByObjectKey(String objectKey);
+
+    /** The prefix is a folder without its trailing slash, so articles/1 does not match the keys of articles/10 **/
+    @Query("SELECT r FROM MediaResource r WHERE r.objectKey LIKE CONCAT(:prefix, '/%') ORDER BY r.objectKey")
+    List<MediaResource> findByPrefix(@Param("prefix") String prefix);
+
+    @Query("SELECT COUNT(r) > 0 FROM MediaResource r WHERE r.objectKey LIKE CONCAT(:prefix, '/%')")
+    boolean existsByPrefix(@Param("prefix") String prefix);
+}
@@ -0,0 +1,38 @@
+package me.artemiyulyanov.uptodate.repositories;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import me.artemiyulyanov.uptodate.models.OutboxMail;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+    /**
+     * The due mails not held by another worker: the rows locked by a concurrent claim are skipped instead of waited for.
+     * The lock timeout of -2 is SKIP LOCKED, rendered by the dialect where the database supports it (plain FOR UPDATE otherwise)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT m FROM OutboxMail m WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+    List<OutboxMail> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.nextAttemptAt = :leaseUntil WHERE m.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatus(OutboxMail.Status status);
+
+    @Query("SELECT m.id FROM OutboxMail m WHERE m.status = 'SENT' AND m.sentAt < :sentBefore")
+    List<Long> findSentBefore(@Param("sentBefore") LocalDateTime sentBefore, Pageable pageable);
+}
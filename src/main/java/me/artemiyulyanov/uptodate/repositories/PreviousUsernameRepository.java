@@ -0,0 +1,9 @@
+package me.artemiyulyanov.uptodate.repositories;
+
+import me.artemiyulyanov.uptodate.models.PreviousUsername;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PreviousUsernameRepository extends JpaRepository<PreviousUsername, String> {
+}
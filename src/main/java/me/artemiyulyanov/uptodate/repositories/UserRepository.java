@@ -1,13 +1,21 @@
 package me.artemiyulyanov.uptodate.repositories;
 
+import jakarta.persistence.QueryHint;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
 import me.artemiyulyanov.uptodate.models.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.USERS_BY_USERNAME_REGION)
+    })
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     void deleteByUsername(String username);
@@ -22,12 +22,8 @@ public class ArticleSpecification {
 
             List<Predicate> predicates = topics.stream()
                     .map(topic -> criteriaBuilder.or(
-                            criteriaBuilder.equal(criteriaBuilder.function("JSON_UNQUOTE", String.class,
-                                    criteriaBuilder.function("JSON_EXTRACT", String.class,
-                                            topicsJoin.get("name"), criteriaBuilder.literal("$.english"))), topic),
-                            criteriaBuilder.equal(criteriaBuilder.function("JSON_UNQUOTE", String.class,
-                                    criteriaBuilder.function("JSON_EXTRACT", String.class,
-                                            topicsJoin.get("name"), criteriaBuilder.literal("$.russian"))), topic)
+                            criteriaBuilder.equal(topicsJoin.get("name").get("english"), topic),
+                            criteriaBuilder.equal(topicsJoin.get("name").get("russian"), topic)
                     ))
                     .toList();
 
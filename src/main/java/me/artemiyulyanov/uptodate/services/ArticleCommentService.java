@@ -1,7 +1,9 @@
 package me.artemiyulyanov.uptodate.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.minio.resources.ArticleCommentResourceManager;
 import me.artemiyulyanov.uptodate.models.Article;
 import me.artemiyulyanov.uptodate.models.ArticleComment;
@@ -16,6 +18,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ArticleCommentService implements ResourceService<ArticleCommentResourceManager> {
@@ -32,6 +35,12 @@ public class ArticleCommentService implements ResourceService<ArticleCommentReso
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private UploadEngine uploadEngine;
+
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -47,18 +56,20 @@ public class ArticleCommentService implements ResourceService<ArticleCommentReso
         return articleCommentRepository.findByAuthor(author);
     }
 
-    public void editComment(Long id, String content, List<MultipartFile> resources) {
+    public CompletableFuture<Void> editComment(Long id, String content, List<MultipartFile> resources) {
         ArticleComment newArticleComment = articleCommentRepository.findById(id).get();
 
         newArticleComment.setContent(content);
-        getResourceManager().updateResources(newArticleComment, resources);
-
         articleCommentRepository.save(newArticleComment);
+
+        return getResourceManager().updateResources(newArticleComment, resources);
     }
 
-    public void delete(ArticleComment comment) {
-        getResourceManager().deleteResources(comment);
+    public CompletableFuture<Void> delete(ArticleComment comment) {
+        CompletableFuture<Void> resourcesRemoval = getResourceManager().deleteResources(comment);
         articleCommentRepository.delete(comment);
+
+        return resourcesRemoval;
     }
 
     public void save(ArticleComment comment) {
@@ -70,6 +81,8 @@ public class ArticleCommentService implements ResourceService<ArticleCommentReso
         return ArticleCommentResourceManager
                 .builder()
                 .minioService(minioService)
+                .uploadEngine(uploadEngine)
+                .asyncMinioService(asyncMinioService)
                 .build();
     }
 
@@ -2,14 +2,18 @@ package me.artemiyulyanov.uptodate.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.minio.resources.ArticleResourceManager;
 import me.artemiyulyanov.uptodate.models.Article;
 import me.artemiyulyanov.uptodate.models.ArticleTopic;
 import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.models.listeners.ArticleChangedEvent;
 import me.artemiyulyanov.uptodate.repositories.ArticleRepository;
 import me.artemiyulyanov.uptodate.web.PageableObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,9 +42,18 @@ public class ArticleService implements ResourceService<ArticleResourceManager> {
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private UploadEngine uploadEngine;
+
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @PostConstruct
     @Lazy
     public void init() {
@@ -53,7 +67,10 @@ public class ArticleService implements ResourceService<ArticleResourceManager> {
 
         ArticleTopic topic5 = articleTopicService.findByName("Fashion & Style").get();
 
-        User author = userService.findByUsername("artemiyulyanov2008").get();
+        Optional<User> wrappedAuthor = userService.findByUsername("artemiyulyanov2008");
+        if (wrappedAuthor.isEmpty()) return;
+
+        User author = wrappedAuthor.get();
         Article article1 = Article.builder()
                 .author(author)
                 .heading("No longer unavailable — widely-distributed famous fashion brands appear in Shanghai’s streets")
@@ -118,7 +135,7 @@ public class ArticleService implements ResourceService<ArticleResourceManager> {
 //        return articleRepository.findArticlesByAuthorAfterDate(author, after);
 //    }
 
-    public void editArticle(Long id, String heading, String description, String content, List<String> topicsNames, List<MultipartFile> newFiles) {
+    public CompletableFuture<Void> editArticle(Long id, String heading, String description, String content, List<String> topicsNames, List<MultipartFile> newFiles) {
         Article newArticle = articleRepository.findById(id).get();
         Set<ArticleTopic> topics = topicsNames.stream()
                 .map(articleTopicService::findByName)
@@ -130,18 +147,23 @@ public class ArticleService implements ResourceService<ArticleResourceManager> {
         newArticle.setDescription(description);
         newArticle.setContent(content);
         newArticle.setTopics(topics);
-        getResourceManager().updateResources(newArticle, newFiles);
-
         articleRepository.save(newArticle);
+
+        // replacing only the topics does not update the article row, so ArticleListener is not called
+        applicationEventPublisher.publishEvent(new ArticleChangedEvent(newArticle.getId()));
+
+        return getResourceManager().updateResources(newArticle, newFiles);
     }
 
     public void deleteById(Long id) {
         articleRepository.deleteById(id);
     }
 
-    public void delete(Article article) {
-        getResourceManager().deleteResources(article);
+    public CompletableFuture<Void> delete(Article article) {
+        CompletableFuture<Void> resourcesRemoval = getResourceManager().deleteResources(article);
         articleRepository.delete(article);
+
+        return resourcesRemoval;
     }
 
     public void save(Article article) {
@@ -153,6 +175,8 @@ public class ArticleService implements ResourceService<ArticleResourceManager> {
         return ArticleResourceManager
                 .builder()
                 .minioService(minioService)
+                .uploadEngine(uploadEngine)
+                .asyncMinioService(asyncMinioService)
                 .build();
     }
 }
\ No newline at end of file
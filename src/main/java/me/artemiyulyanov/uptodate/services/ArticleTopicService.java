@@ -1,17 +1,24 @@
 package me.artemiyulyanov.uptodate.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
 import me.artemiyulyanov.uptodate.models.ArticleTopic;
+import me.artemiyulyanov.uptodate.models.listeners.ArticleChangedEvent;
 import me.artemiyulyanov.uptodate.repositories.ArticleTopicRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@DependsOn("topicNamesMigration")
 public class ArticleTopicService {
     public static final List<ArticleTopic> TOPICS = List.of(
             ArticleTopic.of("Technology", "Технологии", "Artificial Intelligence", "Искусственный интеллект"),
@@ -124,17 +131,49 @@ public class ArticleTopicService {
             ArticleTopic.of("Sports & Recreation", "Спорт и отдых", "Running & Marathon", "Бег и марафоны")
     );
 
+    private static final String ARTICLE_COUNTS = "article-counts";
+
     @Autowired
     private ArticleTopicRepository articleTopicRepository;
 
+    /** Only bounds the staleness of the articles changed by another node, a change made here drops the counts on commit **/
+    @Value("${topics.article-counts.ttl-ms:60000}")
+    private long articleCountsTtl;
+
+    /** The article counts of all the topics under a single key, computed together by one GROUP BY **/
+    private Cache<String, Map<Long, Integer>> articleCounts;
+
     @PostConstruct
     public void init() {
+        articleCounts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(articleCountsTtl))
+                .maximumSize(1)
+                .build();
+
         if (articleTopicRepository.count() > 0) return;
 
         List<ArticleTopic> topics = TOPICS;
         articleTopicRepository.saveAll(topics);
     }
 
+    public int getArticlesCount(Long topicId) {
+        return articleCounts.get(ARTICLE_COUNTS, ignored -> countArticles()).getOrDefault(topicId, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        articleCounts.invalidate(ARTICLE_COUNTS);
+    }
+
+    private Map<Long, Integer> countArticles() {
+        Map<Long, Integer> counts = new HashMap<>();
+
+        for (Object[] row : articleTopicRepository.countArticlesByTopic()) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        return Map.copyOf(counts);
+    }
+
     public List<ArticleTopic> findAll() {
         return articleTopicRepository.findAll();
     }
@@ -1,5 +1,6 @@
 package me.artemiyulyanov.uptodate.services;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.servlet.http.HttpServletRequest;
 import me.artemiyulyanov.uptodate.models.Article;
 import me.artemiyulyanov.uptodate.models.ArticleView;
@@ -22,6 +23,7 @@ public class ArticleViewService {
     @Autowired
     private ArticleViewRepository articleViewRepository;
 
+    @Timed(value = "article.view", histogram = true)
     public void view(Article article, User user) {
         HttpServletRequest request = requestFactory.getObject();
         String ipAddress = request.getRemoteAddr();
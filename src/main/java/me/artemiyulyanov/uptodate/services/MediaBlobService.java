@@ -0,0 +1,190 @@
+package me.artemiyulyanov.uptodate.services;
+
+import jakarta.transaction.Transactional;
+import me.artemiyulyanov.uptodate.models.MediaBlob;
+import me.artemiyulyanov.uptodate.models.MediaResource;
+import me.artemiyulyanov.uptodate.repositories.MediaBlobRepository;
+import me.artemiyulyanov.uptodate.repositories.MediaResourceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the reference counts of the content-addressed blobs. Every logical object key (e.g. articles/1/cover.png)
+ * is a MediaResource pointing at a blob stored once under blobs/{sha256}, so identical uploads share the same bytes.
+ * The objects uploaded through presigned URLs are recorded as MediaResources without a blob and live under their own key.
+ * The methods releasing references return the direct objects which are not referenced anymore and have to be deleted.
+ * The blobs are not deleted as soon as they lose their last reference, BlobSweeper deletes them once they have stayed
+ * unreferenced for a while, which leaves the uploads of the same bytes in flight the time to take them back.
+ */
+@Service
+@Transactional
+public class MediaBlobService {
+    public static final String BLOBS_FOLDER = "blobs/";
+
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Autowired
+    private MediaResourceRepository mediaResourceRepository;
+
+    /**
+     * Takes one more reference of an already stored blob and points the object key at it, both in one transaction.
+     * Returns empty if the blob is unknown and has to be uploaded, then register() does the same once it is.
+     */
+    public Optional<Binding> bindStored(String objectKey, String digest) {
+        if (mediaBlobRepository.incrementReferences(digest) == 0) return Optional.empty();
+        return Optional.of(new Binding(bind(objectKey, mediaBlobRepository.getReferenceById(digest), null)));
+    }
+
+    /** Records the uploaded blob, or takes a reference of it if a concurrent upload of the same bytes has been first **/
+    public Binding register(String objectKey, String digest, long size, String contentType) {
+        mediaBlobRepository.upsert(digest, size, contentType, LocalDateTime.now());
+        return new Binding(bind(objectKey, mediaBlobRepository.getReferenceById(digest), null));
+    }
+
+    /** Records the object which has been uploaded directly under its own key **/
+    public Optional<String> bindDirect(String objectKey, long size) {
+        return bind(objectKey, null, size);
+    }
+
+    private Optional<String> bind(String objectKey, MediaBlob blob, Long size) {
+        Optional<MediaResource> wrappedResource = mediaResourceRepository.findByObjectKey(objectKey);
+
+        if (wrappedResource.isEmpty()) {
+            mediaResourceRepository.save(MediaResource.builder()
+                    .objectKey(objectKey)
+                    .blob(blob)
+                    .size(size)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            return Optional.empty();
+        }
+
+        MediaResource resource = wrappedResource.get();
+        MediaBlob previousBlob = resource.getBlob();
+
+        resource.setBlob(blob);
+        resource.setSize(size);
+        resource.setCreatedAt(LocalDateTime.now());
+        mediaResourceRepository.save(resource);
+
+        if (previousBlob != null) {
+            release(previousBlob.getDigest());
+            return Optional.empty();
+        }
+
+        // a direct object is overwritten in place by another direct upload, but has to go once the key points at a blob
+        return blob != null ? Optional.of(objectKey) : Optional.empty();
+    }
+
+    public Optional<String> unbind(String objectKey) {
+        Optional<MediaResource> wrappedResource = mediaResourceRepository.findByObjectKey(objectKey);
+        if (wrappedResource.isEmpty()) return Optional.empty();
+
+        MediaResource resource = wrappedResource.get();
+        mediaResourceRepository.delete(resource);
+
+        return release(resource);
+    }
+
+    public List<String> unbindFolder(String prefix) {
+        List<String> unreferencedObjectKeys = new ArrayList<>();
+
+        for (MediaResource resource : mediaResourceRepository.findByPrefix(prefix)) {
+            mediaResourceRepository.delete(resource);
+            release(resource).ifPresent(unreferencedObjectKeys::add);
+        }
+
+        return unreferencedObjectKeys;
+    }
+
+    private Optional<String> release(MediaResource resource) {
+        if (resource.getBlob() == null) return Optional.of(resource.getObjectKey());
+
+        release(resource.getBlob().getDigest());
+        return Optional.empty();
+    }
+
+    /** The blob stays stored when its last reference goes, an upload of the same bytes may be taking it back concurrently **/
+    private void release(String digest) {
+        mediaBlobRepository.decrementReferences(digest);
+        mediaBlobRepository.markReleased(digest, LocalDateTime.now());
+    }
+
+    public List<String> getUnreferenced(LocalDateTime releasedBefore, int limit) {
+        return mediaBlobRepository.findUnreferenced(releasedBefore, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Deletes the blob if it is still unreferenced. The row stays locked while the stored object is deleted,
+     * so an upload taking a reference meanwhile waits and then finds the blob gone, and uploads it again.
+     */
+    public boolean deleteIfUnreferenced(String digest, LocalDateTime releasedBefore, Consumer<String> storageDeletion) {
+        Optional<MediaBlob> wrappedBlob = mediaBlobRepository.lockUnreferenced(digest, releasedBefore);
+        if (wrappedBlob.isEmpty()) return false;
+
+        storageDeletion.accept(getBlobKey(digest));
+        mediaBlobRepository.delete(wrappedBlob.get());
+        return true;
+    }
+
+    public Optional<String> resolve(String objectKey) {
+        return mediaResourceRepository.findByObjectKey(objectKey)
+                .map(resource -> resource.getBlob() != null ? getBlobKey(resource.getBlob().getDigest()) : resource.getObjectKey());
+    }
+
+    public boolean exists(String objectKey) {
+        return mediaResourceRepository.existsByObjectKey(objectKey);
+    }
+
+    public boolean folderExists(String prefix) {
+        return mediaResourceRepository.existsByPrefix(prefix);
+    }
+
+    public List<MediaResource> getResources(String prefix) {
+        return mediaResourceRepository.findByPrefix(prefix);
+    }
+
+    public List<String> getFolder(String prefix) {
+        return mediaResourceRepository.findByPrefix(prefix)
+                .stream()
+                .map(MediaResource::getObjectKey)
+                .toList();
+    }
+
+    /** The direct object the key pointed at before, it is not referenced anymore and has to be deleted **/
+    public record Binding(Optional<String> unreferencedObjectKey) {
+    }
+
+    public static String getBlobKey(String digest) {
+        return BLOBS_FOLDER + digest;
+    }
+
+    public static String digest(InputStream inputStream) throws IOException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+
+            try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, messageDigest)) {
+                digestInputStream.transferTo(OutputStream.nullOutputStream());
+            }
+
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+}
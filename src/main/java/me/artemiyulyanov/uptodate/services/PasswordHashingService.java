@@ -0,0 +1,100 @@
+package me.artemiyulyanov.uptodate.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the BCrypt computations on a dedicated bounded pool, so a burst of logins only occupies a fixed number of cores
+ * and the rest of the API keeps being served. Once the queue is full the new computations are rejected right away
+ * with RejectedExecutionException instead of piling up, and the caller is supposed to answer 503.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${auth.hashing.concurrency:0}")
+    private int concurrency;
+
+    @Value("${auth.hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    private ExecutorService hashingExecutor;
+
+    /** Matched against when the user is missing, so unknown usernames take as long as the wrong passwords **/
+    private String dummyHash;
+
+    @PostConstruct
+    public void init() {
+        int threads = concurrency > 0 ? concurrency : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        hashingExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        dummyHash = passwordEncoder.encode("dummy-password");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        hashingExecutor.shutdown();
+    }
+
+    /** Completes exceptionally with RejectedExecutionException if the pool is saturated **/
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks the password of the user with exactly one hash computation. If the stored hash has been computed with a lower
+     * cost than the configured one, the password is rehashed on the same pool and saved, transparently for the user.
+     */
+    public CompletableFuture<Optional<User>> authenticate(Optional<User> wrappedUser, String rawPassword) {
+        String encodedPassword = wrappedUser.map(User::getPassword).orElse(dummyHash);
+
+        return submit(() -> {
+            if (!passwordEncoder.matches(rawPassword, encodedPassword) || wrappedUser.isEmpty()) return Optional.empty();
+
+            User user = wrappedUser.get();
+            if (passwordEncoder.upgradeEncoding(encodedPassword)) rehash(user, rawPassword);
+
+            return Optional.of(user);
+        });
+    }
+
+    private void rehash(User user, String rawPassword) {
+        try {
+            user.setPassword(passwordEncoder.encode(rawPassword));
+            userService.save(user);
+        } catch (RuntimeException e) {
+            // the login itself has succeeded, the rehash is retried on the next one
+            log.warn("Unable to rehash the password of the user {}", user.getId(), e);
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, hashingExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -2,10 +2,14 @@ package me.artemiyulyanov.uptodate.services;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
+import me.artemiyulyanov.uptodate.minio.AsyncMinioService;
 import me.artemiyulyanov.uptodate.minio.MinioService;
+import me.artemiyulyanov.uptodate.minio.UploadEngine;
 import me.artemiyulyanov.uptodate.minio.resources.UserResourceManager;
+import me.artemiyulyanov.uptodate.models.PreviousUsername;
 import me.artemiyulyanov.uptodate.models.Role;
 import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.repositories.PreviousUsernameRepository;
 import me.artemiyulyanov.uptodate.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -20,9 +24,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -33,12 +39,21 @@ public class UserService implements UserDetailsService, ResourceService<UserReso
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PreviousUsernameRepository previousUsernameRepository;
+
     @Autowired
     private RoleService roleService;
 
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private UploadEngine uploadEngine;
+
+    @Autowired
+    private AsyncMinioService asyncMinioService;
+
     @Autowired
     @Lazy
     private PasswordEncoder passwordEncoder;
@@ -64,11 +79,19 @@ public class UserService implements UserDetailsService, ResourceService<UserReso
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        Collection<GrantedAuthority> authorities = user.getRoles().stream()
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), getAuthorities(user));
+    }
+
+    public static Collection<GrantedAuthority> getAuthorities(User user) {
+        return user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
                 .collect(Collectors.toList());
+    }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), authorities);
+    /** Makes every token issued to the user so far invalid **/
+    public void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
     }
 
     public boolean userExistsByEmail(String email) {
@@ -94,18 +117,41 @@ public class UserService implements UserDetailsService, ResourceService<UserReso
         userRepository.save(user);
     }
 
-    public void editUser(Long id, String username, String firstName, String lastName, MultipartFile icon) {
+    public CompletableFuture<Void> editUser(Long id, String username, String firstName, String lastName, MultipartFile icon) {
         User newUser = userRepository.findById(id).get();
 
+        if (!username.equals(newUser.getUsername())) {
+            previousUsernameRepository.save(PreviousUsername.builder()
+                    .username(newUser.getUsername())
+                    .user(newUser)
+                    .renamedAt(LocalDateTime.now())
+                    .build());
+        }
+
         newUser.setUsername(username);
         newUser.setFirstName(firstName);
         newUser.setLastName(lastName);
+        userRepository.save(newUser);
+
+        // the profile is kept even if the upload fails, no icon leaves the current one in place
+        if (icon == null) return CompletableFuture.completedFuture(null);
 
         String iconObjectKey = getResourceManager().getResourceFolder(newUser) + File.separator + icon.getOriginalFilename();
-        getResourceManager().updateResources(newUser, List.of(icon));
+        return getResourceManager().updateResources(newUser, List.of(icon)).thenRun(() -> {
+            newUser.setIcon(iconObjectKey);
+            userRepository.save(newUser);
+        });
+    }
 
-        newUser.setIcon(iconObjectKey);
-        userRepository.save(newUser);
+    /** Makes the object the icon of the user and removes the rest of the user resources **/
+    public void replaceIcon(User user, String iconObjectKey) {
+        minioService.getFolder(getResourceManager().getResourceFolder(user))
+                .stream()
+                .filter(objectKey -> !objectKey.equals(iconObjectKey))
+                .forEach(minioService::deleteFile);
+
+        user.setIcon(iconObjectKey);
+        userRepository.save(user);
     }
 
     public void save(User user) {
@@ -124,17 +170,14 @@ public class UserService implements UserDetailsService, ResourceService<UserReso
         return existsByEmail(email) || existsByUsername(username);
     }
 
-    public boolean isUserVaild(String username, String password) {
-        Optional<User> user = userRepository.findByUsername(username);
-        return user.filter(value -> passwordEncoder.matches(password, value.getPassword())).isPresent();
-    }
-
     @Override
     public UserResourceManager getResourceManager() {
         return UserResourceManager
                 .builder()
                 .userRepository(userRepository)
                 .minioService(minioService)
+                .uploadEngine(uploadEngine)
+                .asyncMinioService(asyncMinioService)
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package me.artemiyulyanov.uptodate.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.models.listeners.UserChangedEvent;
+import me.artemiyulyanov.uptodate.repositories.UserRepository;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * What the authentication needs to know about a user (whether it still exists and which token version is current),
+ * kept in memory so that authenticating a request costs no query. Once a change of the user has been committed,
+ * its entry is dropped on this node and the other nodes are told over Redis pub/sub, like TokenRevocationStore does.
+ * They also evict the user from their second-level cache of Hibernate.
+ * Pub/sub delivers at most once, so the TTL bounds the staleness of a missed message or of a change made outside of the application.
+ */
+@Slf4j
+@Service
+public class UserStateCache {
+    private static final String INVALIDATIONS_CHANNEL = "auth:user-states:invalidations";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${auth.user-cache.ttl-ms:60000}")
+    private long ttl;
+
+    @Value("${auth.user-cache.max-size:100000}")
+    private long maxSize;
+
+    private Cache<Long, Optional<UserState>> userStates;
+
+    @PostConstruct
+    public void init() {
+        userStates = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .maximumSize(maxSize)
+                .build();
+
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onBroadcast(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(INVALIDATIONS_CHANNEL)
+        );
+    }
+
+    /** Empty if there is no such user anymore **/
+    public Optional<UserState> get(Long userId) {
+        return userStates.get(userId, id -> userRepository.findById(id).map(user -> new UserState(user.getId(), user.getUsername(), user.getTokenVersion())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userStates.invalidate(event.getUserId());
+
+        try {
+            redisTemplate.convertAndSend(INVALIDATIONS_CHANNEL, event.getUserId().toString());
+        } catch (RuntimeException e) {
+            log.warn("Unable to tell the other nodes that the user {} has changed, they see it once their entry expires", event.getUserId(), e);
+        }
+    }
+
+    /**
+     * Hibernate has only updated the second-level cache of the node which has committed the change, so the user is evicted
+     * from the one of this node as well, with the cached lookups by username which could still find it by its previous one.
+     * Only their region is evicted, the other cached queries are left alone. The node which has sent the broadcast
+     * receives it too, and merely reloads the user once more.
+     */
+    void onBroadcast(Long userId) {
+        userStates.invalidate(userId);
+
+        org.hibernate.Cache secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        secondLevelCache.evictEntityData(User.class, userId);
+        secondLevelCache.evictCollectionData(User.class.getName() + ".roles", userId);
+        secondLevelCache.evictQueryRegion(HibernateCacheConfig.USERS_BY_USERNAME_REGION);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class UserState {
+        private final Long id;
+        private final String username;
+        private final int tokenVersion;
+    }
+}
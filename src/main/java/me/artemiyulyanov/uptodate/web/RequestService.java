@@ -1,9 +1,11 @@
 package me.artemiyulyanov.uptodate.web;
 
+import com.amazonaws.AmazonClientException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.context.annotation.Bean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -11,26 +13,24 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
+import software.amazon.awssdk.core.exception.SdkException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Map;
 
 @Service
+@Slf4j
 public class RequestService {
-    @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.findAndRegisterModules();
-
-        return objectMapper;
-    }
+    @Autowired
+    private ObjectMapper objectMapper;
 
     public String mapToJson(Map<String, Object> params) {
         try {
-            return objectMapper().writeValueAsString(params);
+            return objectMapper.writeValueAsString(params);
         } catch (JsonProcessingException e) {
             e.printStackTrace();
             return null;
@@ -136,6 +136,30 @@ public class RequestService {
         return ResponseEntity.status(HttpStatus.FOUND).headers(headers).build();
     }
 
+    /** Streams the image as it is read, the length is left to the chunked encoding if it is unknown **/
+    public ResponseEntity<InputStreamResource> executeMediaResponse(HttpStatus status, MediaType mediaType, Long contentLength, InputStream image) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).contentType(mediaType);
+        if (contentLength != null) response.contentLength(contentLength);
+
+        return response.body(new InputStreamResource(image));
+    }
+
+    /** The failures of the storage are answered with 502, the rest of them (e.g. the DB ones) with 500 **/
+    public ResponseEntity<?> executeFailureResponse(Throwable e, String storageMessage) {
+        if (isStorageFailure(e)) return executeApiResponse(HttpStatus.BAD_GATEWAY, storageMessage);
+
+        log.error("Unable to proceed the request", e);
+        return executeApiResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to proceed the request!");
+    }
+
+    private boolean isStorageFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AmazonClientException || cause instanceof SdkException || cause instanceof IOException || cause instanceof UncheckedIOException) return true;
+        }
+
+        return false;
+    }
+
     public ResponseEntity<byte[]> executeMediaResponse(HttpStatus status, MediaType mediaType, byte[] image) {
         return ResponseEntity.status(status)
                 .contentType(mediaType)
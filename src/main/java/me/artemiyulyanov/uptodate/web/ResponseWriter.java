@@ -0,0 +1,67 @@
+package me.artemiyulyanov.uptodate.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializes the response envelopes with an ObjectWriter resolved once per envelope and entity type, so writing
+ * a response neither looks the serializers up again nor buffers the JSON: it goes straight to the output stream.
+ */
+@Component
+public class ResponseWriter {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<WriterKey, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public void write(ServerResponse<?> response, OutputStream outputStream) throws IOException {
+        getWriter(response).writeValue(outputStream, response);
+    }
+
+    public byte[] writeAsBytes(ServerResponse<?> response) throws IOException {
+        return getWriter(response).writeValueAsBytes(response);
+    }
+
+    private ObjectWriter getWriter(ServerResponse<?> response) {
+        Object entity = response.getResponse();
+        Class<?> elementClass = entity instanceof Collection<?> collection && !collection.isEmpty() && collection.iterator().next() != null
+                ? collection.iterator().next().getClass()
+                : null;
+
+        return writers.computeIfAbsent(new WriterKey(response.getClass(), entity != null ? entity.getClass() : null, elementClass), this::createWriter);
+    }
+
+    private ObjectWriter createWriter(WriterKey key) {
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        JavaType envelopeType = typeFactory.constructType(key.envelopeClass());
+
+        // the generic envelopes are typed by their entity, the others (e.g. TokenResponse) declare everything themselves
+        if (key.envelopeClass().getTypeParameters().length == 1 && key.entityClass() != null) {
+            JavaType entityType = key.elementClass() != null && Collection.class.isAssignableFrom(key.entityClass())
+                    ? typeFactory.constructCollectionType(asCollectionClass(key.entityClass()), key.elementClass())
+                    : typeFactory.constructType(key.entityClass());
+            envelopeType = typeFactory.constructParametricType(key.envelopeClass(), entityType);
+        }
+
+        return objectMapper.writerFor(envelopeType).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Collection<?>> asCollectionClass(Class<?> entityClass) {
+        return (Class<? extends Collection<?>>) entityClass;
+    }
+
+    private record WriterKey(Class<?> envelopeClass, Class<?> entityClass, Class<?> elementClass) {
+    }
+}
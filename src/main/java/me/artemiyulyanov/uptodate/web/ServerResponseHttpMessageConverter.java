@@ -0,0 +1,39 @@
+package me.artemiyulyanov.uptodate.web;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/** Writes the ServerResponse bodies through ResponseWriter, ahead of the generic Jackson converter **/
+public class ServerResponseHttpMessageConverter extends AbstractHttpMessageConverter<ServerResponse<?>> {
+    private final ResponseWriter responseWriter;
+
+    public ServerResponseHttpMessageConverter(ResponseWriter responseWriter) {
+        super(MediaType.APPLICATION_JSON);
+        this.responseWriter = responseWriter;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ServerResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ServerResponse<?> readInternal(Class<? extends ServerResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("The responses are never read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ServerResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        responseWriter.write(response, outputMessage.getBody());
+    }
+}
@@ -0,0 +1,220 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/** The blocking S3 client backed by the memory, implementing only the calls the application makes (the files are always sent as streams) **/
+public class InMemoryAmazonS3 extends AbstractAmazonS3 {
+    private final InMemoryObjectStore store;
+
+    public InMemoryAmazonS3(InMemoryObjectStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean doesBucketExistV2(String bucketName) {
+        return true;
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return new Bucket(bucketName);
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String objectName) {
+        return store.get(objectName).isPresent();
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        InMemoryObjectStore.StoredObject object = store.put(request.getKey(), read(request.getInputStream()), getContentType(request.getMetadata()));
+
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(object.eTag());
+        return result;
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        InMemoryObjectStore.StoredObject object = store.get(request.getKey()).orElseThrow(() -> notFound(request.getKey()));
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(request.getBucketName());
+        s3Object.setKey(request.getKey());
+        s3Object.setObjectMetadata(getMetadata(object));
+        s3Object.setObjectContent(new ByteArrayInputStream(object.content()));
+        return s3Object;
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return store.get(key).map(InMemoryAmazonS3::getMetadata).orElseThrow(() -> notFound(key));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        store.delete(key);
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest request) {
+        store.delete(request.getKey());
+    }
+
+    @Override
+    public DeleteObjectsResult deleteObjects(DeleteObjectsRequest request) {
+        List<DeleteObjectsResult.DeletedObject> deletedObjects = request.getKeys()
+                .stream()
+                .peek(key -> store.delete(key.getKey()))
+                .map(key -> {
+                    DeleteObjectsResult.DeletedObject deletedObject = new DeleteObjectsResult.DeletedObject();
+                    deletedObject.setKey(key.getKey());
+                    return deletedObject;
+                })
+                .collect(Collectors.toList());
+
+        return new DeleteObjectsResult(request.getQuiet() ? List.of() : deletedObjects);
+    }
+
+    @Override
+    public ObjectListing listObjects(ListObjectsRequest request) {
+        int maxKeys = request.getMaxKeys() != null ? request.getMaxKeys() : 1000;
+        List<Map.Entry<String, InMemoryObjectStore.StoredObject>> entries = store.list(request.getPrefix(), request.getMarker(), maxKeys + 1);
+
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(request.getBucketName());
+        listing.setPrefix(request.getPrefix());
+        listing.setTruncated(entries.size() > maxKeys);
+        entries.stream().limit(maxKeys).forEach(entry -> listing.getObjectSummaries().add(getSummary(request.getBucketName(), entry)));
+        if (listing.isTruncated()) listing.setNextMarker(entries.get(maxKeys - 1).getKey());
+        return listing;
+    }
+
+    @Override
+    public ListObjectsV2Result listObjectsV2(ListObjectsV2Request request) {
+        int maxKeys = request.getMaxKeys() != null ? request.getMaxKeys() : 1000;
+        String startAfter = request.getContinuationToken() != null ? request.getContinuationToken() : request.getStartAfter();
+        List<Map.Entry<String, InMemoryObjectStore.StoredObject>> entries = store.list(request.getPrefix(), startAfter, maxKeys + 1);
+
+        ListObjectsV2Result result = new ListObjectsV2Result();
+        result.setBucketName(request.getBucketName());
+        result.setPrefix(request.getPrefix());
+        result.setTruncated(entries.size() > maxKeys);
+        entries.stream().limit(maxKeys).forEach(entry -> result.getObjectSummaries().add(getSummary(request.getBucketName(), entry)));
+        result.setKeyCount(result.getObjectSummaries().size());
+        if (result.isTruncated()) result.setNextContinuationToken(entries.get(maxKeys - 1).getKey());
+        return result;
+    }
+
+    @Override
+    public CopyObjectResult copyObject(String sourceBucketName, String sourceKey, String destinationBucketName, String destinationKey) {
+        InMemoryObjectStore.StoredObject object = store.get(sourceKey).orElseThrow(() -> notFound(sourceKey));
+        store.put(destinationKey, object.content(), object.contentType());
+
+        CopyObjectResult result = new CopyObjectResult();
+        result.setETag(object.eTag());
+        return result;
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        try {
+            return new URL("http://in-memory-s3/" + request.getBucketName() + "/" + request.getKey() + "?X-Amz-Expires=" + request.getExpiration().getTime());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(store.initiateUpload());
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        byte[] content;
+        try {
+            content = request.getInputStream().readNBytes((int) request.getPartSize());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(store.putPart(request.getUploadId(), request.getPartNumber(), content));
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        InMemoryObjectStore.StoredObject object = store.completeUpload(request.getUploadId(), request.getKey(), null);
+
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setETag(object.eTag());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        store.abortUpload(request.getUploadId());
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    private static byte[] read(InputStream inputStream) {
+        try (inputStream) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String getContentType(ObjectMetadata metadata) {
+        return metadata != null ? metadata.getContentType() : null;
+    }
+
+    private static ObjectMetadata getMetadata(InMemoryObjectStore.StoredObject object) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(object.content().length);
+        metadata.setContentType(object.contentType());
+        metadata.setLastModified(object.lastModified());
+        metadata.setHeader("ETag", object.eTag());
+        return metadata;
+    }
+
+    private static S3ObjectSummary getSummary(String bucketName, Map.Entry<String, InMemoryObjectStore.StoredObject> entry) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(bucketName);
+        summary.setKey(entry.getKey());
+        summary.setSize(entry.getValue().content().length);
+        summary.setETag(entry.getValue().eTag());
+        summary.setLastModified(entry.getValue().lastModified());
+        return summary;
+    }
+
+    private static AmazonS3Exception notFound(String key) {
+        AmazonS3Exception exception = new AmazonS3Exception("The object " + key + " does not exist");
+        exception.setStatusCode(404);
+        exception.setErrorCode("NoSuchKey");
+        return exception;
+    }
+}
@@ -0,0 +1,81 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** The objects of the only bucket, shared by both S3 stubs so that the blocking and the non-blocking paths see the same data **/
+public class InMemoryObjectStore {
+    private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    public record StoredObject(byte[] content, String contentType, String eTag, Date lastModified) {
+    }
+
+    public StoredObject put(String objectKey, byte[] content, String contentType) {
+        StoredObject object = new StoredObject(content, contentType, eTag(content), new Date());
+        objects.put(objectKey, object);
+        return object;
+    }
+
+    public Optional<StoredObject> get(String objectKey) {
+        return Optional.ofNullable(objects.get(objectKey));
+    }
+
+    public boolean delete(String objectKey) {
+        return objects.remove(objectKey) != null;
+    }
+
+    /** Up to maxKeys entries under the prefix, in the key order, starting right after the given key **/
+    public List<Map.Entry<String, StoredObject>> list(String prefix, String startAfter, int maxKeys) {
+        String from = prefix == null ? "" : prefix;
+        NavigableMap<String, StoredObject> tail = startAfter != null && startAfter.compareTo(from) >= 0
+                ? objects.tailMap(startAfter, false)
+                : objects.tailMap(from, true);
+
+        List<Map.Entry<String, StoredObject>> entries = new ArrayList<>();
+        for (Map.Entry<String, StoredObject> entry : tail.entrySet()) {
+            if (!entry.getKey().startsWith(from) || entries.size() == maxKeys) break;
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    public String initiateUpload() {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        return uploadId;
+    }
+
+    public String putPart(String uploadId, int partNumber, byte[] content) {
+        uploads.get(uploadId).put(partNumber, content);
+        return eTag(content);
+    }
+
+    public StoredObject completeUpload(String uploadId, String objectKey, String contentType) {
+        ConcurrentSkipListMap<Integer, byte[]> parts = uploads.remove(uploadId);
+        int size = parts.values().stream().mapToInt(part -> part.length).sum();
+
+        byte[] content = new byte[size];
+        int offset = 0;
+        for (byte[] part : parts.values()) {
+            System.arraycopy(part, 0, content, offset, part.length);
+            offset += part.length;
+        }
+        return put(objectKey, content, contentType);
+    }
+
+    public void abortUpload(String uploadId) {
+        uploads.remove(uploadId);
+    }
+
+    private static String eTag(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported by the JVM", e);
+        }
+    }
+}
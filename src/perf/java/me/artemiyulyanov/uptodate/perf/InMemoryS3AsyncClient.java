@@ -0,0 +1,143 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/** The non-blocking S3 client backed by the memory. Every call completes right away on the calling thread **/
+public class InMemoryS3AsyncClient implements S3AsyncClient {
+    private final InMemoryObjectStore store;
+
+    public InMemoryS3AsyncClient(InMemoryObjectStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObject(GetObjectRequest request, AsyncResponseTransformer<GetObjectResponse, T> transformer) {
+        return store.get(request.key())
+                .map(object -> {
+                    CompletableFuture<T> result = transformer.prepare();
+                    transformer.onResponse(GetObjectResponse.builder()
+                            .contentLength((long) object.content().length)
+                            .contentType(object.contentType())
+                            .eTag(object.eTag())
+                            .lastModified(object.lastModified().toInstant())
+                            .build());
+                    transformer.onStream(AsyncRequestBody.fromBytes(object.content()));
+                    return result;
+                })
+                .orElseGet(() -> CompletableFuture.failedFuture(notFound(request.key())));
+    }
+
+    /** Completes once the whole body has been received, on the thread delivering its last chunk **/
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody requestBody) {
+        CompletableFuture<PutObjectResponse> result = new CompletableFuture<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        requestBody.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                byte[] chunk = new byte[buffer.remaining()];
+                buffer.get(chunk);
+                content.write(chunk, 0, chunk.length);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onComplete() {
+                InMemoryObjectStore.StoredObject object = store.put(request.key(), content.toByteArray(), request.contentType());
+                result.complete(PutObjectResponse.builder().eTag(object.eTag()).build());
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(HeadObjectRequest request) {
+        return store.get(request.key())
+                .map(object -> CompletableFuture.completedFuture(HeadObjectResponse.builder()
+                        .contentLength((long) object.content().length)
+                        .contentType(object.contentType())
+                        .eTag(object.eTag())
+                        .lastModified(object.lastModified().toInstant())
+                        .build()))
+                .orElseGet(() -> CompletableFuture.failedFuture(notFound(request.key())));
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsV2Response> listObjectsV2(ListObjectsV2Request request) {
+        int maxKeys = request.maxKeys() != null ? request.maxKeys() : 1000;
+        String startAfter = request.continuationToken() != null ? request.continuationToken() : request.startAfter();
+        List<Map.Entry<String, InMemoryObjectStore.StoredObject>> entries = store.list(request.prefix(), startAfter, maxKeys + 1);
+
+        List<S3Object> contents = entries.stream()
+                .limit(maxKeys)
+                .map(entry -> S3Object.builder()
+                        .key(entry.getKey())
+                        .size((long) entry.getValue().content().length)
+                        .eTag(entry.getValue().eTag())
+                        .lastModified(entry.getValue().lastModified().toInstant())
+                        .build())
+                .toList();
+        boolean truncated = entries.size() > maxKeys;
+
+        return CompletableFuture.completedFuture(ListObjectsV2Response.builder()
+                .name(request.bucket())
+                .prefix(request.prefix())
+                .contents(contents)
+                .keyCount(contents.size())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? contents.get(contents.size() - 1).key() : null)
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<DeleteObjectsResponse> deleteObjects(DeleteObjectsRequest request) {
+        List<DeletedObject> deleted = request.delete()
+                .objects()
+                .stream()
+                .peek(object -> store.delete(object.key()))
+                .map(object -> DeletedObject.builder().key(object.key()).build())
+                .toList();
+
+        return CompletableFuture.completedFuture(DeleteObjectsResponse.builder()
+                .deleted(Boolean.TRUE.equals(request.delete().quiet()) ? List.of() : deleted)
+                .build());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static NoSuchKeyException notFound(String key) {
+        return (NoSuchKeyException) NoSuchKeyException.builder()
+                .statusCode(404)
+                .message("The object " + key + " does not exist")
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * An embedded SMTP server accepting every mail without authentication, standing in for the mail server in the performance
+ * harness. Like GreenMail, it is only on the classpath with -Pperf and never ships in the application jar.
+ * The mails are kept in memory: point spring.mail.host/port at it (localhost:3025 by default).
+ */
+@Configuration
+@Profile("local-smtp")
+public class LocalSmtpConfig {
+    @Value("${spring.mail.port:3025}")
+    private int port;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public GreenMail localSmtpServer() {
+        return new GreenMail(new ServerSetup(port, "127.0.0.1", ServerSetup.PROTOCOL_SMTP))
+                .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+    }
+}
@@ -0,0 +1,117 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.github.fppt.jedismock.RedisServer;
+import com.github.fppt.jedismock.datastructures.Slice;
+import com.github.fppt.jedismock.operations.server.MockExecutor;
+import com.github.fppt.jedismock.server.ServiceOptions;
+import com.github.fppt.jedismock.storage.OperationExecutorState;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Runs the application without any external service: MySQL is replaced by H2 in the MySQL mode (see application-perf.properties),
+ * Redis by an in-process server speaking its protocol, MinIO by the in-memory stubs of both S3 clients.
+ * The requests still go through Lettuce and the real JDBC driver, only the S3 calls skip the network.
+ */
+@Configuration
+@Profile("perf")
+public class PerfConfig {
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${perf.redis.port:0}")
+    private int redisPort;
+
+    @Bean(destroyMethod = "stop")
+    public RedisServer perfRedisServer() throws IOException {
+        return RedisServer.newRedisServer(redisPort)
+                .setOptions(ServiceOptions.withInterceptor(PerfConfig::subscribeChannelByChannel))
+                .start();
+    }
+
+    /**
+     * jedis-mock answers a SUBSCRIBE of several channels with one flat array instead of one confirmation per channel,
+     * which the listener container of Spring waits for in vain. Subscribing the channels one by one gives the replies of Redis
+     */
+    private static Slice subscribeChannelByChannel(OperationExecutorState state, String command, List<Slice> params) {
+        if (!(command.equals("subscribe") || command.equals("psubscribe")) || params.size() < 2) {
+            return MockExecutor.proceed(state, command, params);
+        }
+
+        ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        params.forEach(channel -> replies.writeBytes(MockExecutor.proceed(state, command, List.of(channel)).data()));
+        return Slice.create(replies.toByteArray());
+    }
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisServer perfRedisServer, ObjectProvider<ClientResources> clientResources) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration = LettuceClientConfiguration.builder();
+        clientResources.ifAvailable(clientConfiguration::clientResources);
+
+        return new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(perfRedisServer.getHost(), perfRedisServer.getBindPort()),
+                clientConfiguration.build()
+        );
+    }
+
+    @Bean
+    public InMemoryObjectStore inMemoryObjectStore() {
+        return new InMemoryObjectStore();
+    }
+
+    @Bean
+    public AmazonS3 amazonS3(InMemoryObjectStore inMemoryObjectStore) {
+        return new InMemoryAmazonS3(inMemoryObjectStore);
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(InMemoryObjectStore inMemoryObjectStore) {
+        return new InMemoryS3AsyncClient(inMemoryObjectStore);
+    }
+
+    /** Signs locally, the URLs point at the stubs and cannot be followed **/
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create("http://in-memory-s3"))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("perf", "perf")))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+    }
+
+    @Bean
+    public String bucket() {
+        return bucket;
+    }
+
+    /** Wraps the whole chain, security included, so the allocations of a request are counted from its very start **/
+    @Bean
+    public FilterRegistrationBean<RequestAllocationFilter> requestAllocationFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RequestAllocationFilter> registration = new FilterRegistrationBean<>(new RequestAllocationFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,110 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import jakarta.transaction.Transactional;
+import me.artemiyulyanov.uptodate.minio.resources.ArticleResourceManager;
+import me.artemiyulyanov.uptodate.models.Article;
+import me.artemiyulyanov.uptodate.models.ArticleTopic;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.repositories.ArticleRepository;
+import me.artemiyulyanov.uptodate.repositories.ArticleTopicRepository;
+import me.artemiyulyanov.uptodate.repositories.UserRepository;
+import me.artemiyulyanov.uptodate.services.RoleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/** Fills the empty perf database with the users, the articles and their cover images the scenarios work on **/
+@Component
+@Profile("perf")
+public class PerfDataSeeder {
+    public static final String PASSWORD = "perf-password";
+
+    private static final String[] WORDS = {"cloud", "travel", "fashion", "blockchain", "threads", "latency", "design", "market", "science", "music"};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleTopicRepository articleTopicRepository;
+
+    @Autowired
+    private ArticleResourceManager articleResourceManager;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private String bucket;
+
+    public record PerfData(List<String> usernames, List<Long> articleIds, List<String> imagePaths) {
+    }
+
+    @Transactional
+    public PerfData seed(int usersCount, int articlesCount, int imageSize) {
+        Random random = new Random(42);
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        List<ArticleTopic> topics = articleTopicRepository.findAll();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < usersCount; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("perf-user-" + i)
+                    .email("perf-user-" + i + "@uptodate.local")
+                    .firstName("Perf")
+                    .lastName("User " + i)
+                    .password(encodedPassword)
+                    .roles(Set.of(roleService.findRoleByName("USER")))
+                    .build()));
+        }
+
+        List<Long> articleIds = new ArrayList<>();
+        List<String> imagePaths = new ArrayList<>();
+        byte[] image = new byte[imageSize];
+
+        for (int i = 0; i < articlesCount; i++) {
+            Article article = articleRepository.save(Article.builder()
+                    .author(users.get(i % users.size()))
+                    .heading(sentence(random, 8))
+                    .description(sentence(random, 20))
+                    .content(sentence(random, 600))
+                    .topics(topics.isEmpty() ? Set.of() : Set.of(topics.get(random.nextInt(topics.size()))))
+                    .createdAt(LocalDateTime.now().minusMinutes(i))
+                    .build());
+            articleIds.add(article.getId());
+
+            random.nextBytes(image);
+            String imagePath = articleResourceManager.getResourceFolder(article) + File.separator + "cover.png";
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(image.length);
+            metadata.setContentType("image/png");
+            amazonS3.putObject(new PutObjectRequest(bucket, imagePath, new ByteArrayInputStream(image.clone()), metadata));
+            imagePaths.add(imagePath);
+        }
+
+        return new PerfData(users.stream().map(User::getUsername).toList(), articleIds, imagePaths);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringJoiner sentence = new StringJoiner(" ");
+        for (int i = 0; i < words; i++) sentence.add(WORDS[random.nextInt(WORDS.length)]);
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,282 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.artemiyulyanov.uptodate.UptodateApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Starts the application with the perf profile, seeds it and drives a weighted mix of scenarios over HTTP from a fixed
+ * number of client threads (a closed loop: every thread waits for its response before sending the next request).
+ * Reports the throughput, the latency percentiles and the server-side allocations of every scenario, on the console
+ * and as JSON. The settings are system properties, see src/perf/README.md.
+ */
+public final class PerfScenarioRunner {
+    private static final List<String> SEARCH_QUERIES = List.of("cloud", "travel", "threads", "market", "music");
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final PerfDataSeeder.PerfData data;
+    private final List<String> accessTokens = new ArrayList<>();
+    private final Map<Scenario, Integer> mix;
+    private final int totalWeight;
+
+    enum Scenario {
+        SEARCH("/api/articles/search"),
+        RETRIEVE("/api/articles/get"),
+        LIKE("/api/articles/like"),
+        COMMENT("/api/articles/comments/create"),
+        IMAGE("/api/files/get");
+
+        private final String uri;
+
+        Scenario(String uri) {
+            this.uri = uri;
+        }
+    }
+
+    private PerfScenarioRunner(String baseUrl, PerfDataSeeder.PerfData data, Map<Scenario, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("perf.threads", 32);
+        Duration warmup = Duration.ofSeconds(Long.getLong("perf.warmup-seconds", 15));
+        Duration duration = Duration.ofSeconds(Long.getLong("perf.duration-seconds", 60));
+        Map<Scenario, Integer> mix = parseMix(System.getProperty("perf.mix", "search=40,retrieve=30,image=15,like=10,comment=5"));
+        File reportFile = new File(System.getProperty("perf.report", "target/perf-report.json"));
+
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add(0, "--server.port=0");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UptodateApplication.class)
+                .profiles("perf", "local-smtp")
+                .run(arguments.toArray(String[]::new))) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            PerfDataSeeder.PerfData data = context.getBean(PerfDataSeeder.class).seed(
+                    Integer.getInteger("perf.users", 20),
+                    Integer.getInteger("perf.articles", 200),
+                    Integer.getInteger("perf.image-size", 64 * 1024)
+            );
+
+            PerfScenarioRunner runner = new PerfScenarioRunner(baseUrl, data, mix);
+            runner.login(data.usernames());
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            System.out.printf("Warming up for %ds with %d threads%n", warmup.toSeconds(), threads);
+            runner.run(threads, warmup);
+
+            Map<Scenario, Double> allocatedBefore = runner.getAllocatedBytes(meterRegistry);
+            System.out.printf("Measuring for %ds with %d threads%n", duration.toSeconds(), threads);
+            Map<Scenario, Recorder> recorders = runner.run(threads, duration);
+            Map<Scenario, Double> allocatedAfter = runner.getAllocatedBytes(meterRegistry);
+
+            List<Map<String, Object>> report = new ArrayList<>();
+            recorders.forEach((scenario, recorder) -> report.add(recorder.summarize(scenario, duration, allocatedAfter.get(scenario) - allocatedBefore.get(scenario))));
+            print(report, threads);
+
+            reportFile.getAbsoluteFile().getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, Map.of(
+                    "threads", threads,
+                    "durationSeconds", duration.toSeconds(),
+                    "mix", mix,
+                    "scenarios", report
+            ));
+            System.out.println("The report has been written to " + reportFile.getAbsolutePath());
+        }
+    }
+
+    private void login(List<String> usernames) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        for (String username : usernames) {
+            String body = objectMapper.writeValueAsString(Map.of("username", username, "password", PerfDataSeeder.PASSWORD));
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString()
+            );
+
+            if (response.statusCode() >= 400) throw new IllegalStateException("Unable to log in as " + username + ": " + response.body());
+            accessTokens.add(objectMapper.readTree(response.body()).get("access_token").asText());
+        }
+    }
+
+    private Map<Scenario, Recorder> run(int threads, Duration duration) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<Map<Scenario, Recorder>>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                Map<Scenario, Recorder> recorders = newRecorders();
+                while (System.nanoTime() < deadline) execute(pick(), recorders);
+                return recorders;
+            }));
+        }
+
+        Map<Scenario, Recorder> recorders = newRecorders();
+        for (Future<Map<Scenario, Recorder>> worker : workers) {
+            worker.get().forEach((scenario, recorder) -> recorders.get(scenario).merge(recorder));
+        }
+
+        executor.shutdown();
+        return recorders;
+    }
+
+    private void execute(Scenario scenario, Map<Scenario, Recorder> recorders) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long articleId = data.articleIds().get(random.nextInt(data.articleIds().size()));
+        String accessToken = accessTokens.get(random.nextInt(accessTokens.size()));
+
+        HttpRequest request = switch (scenario) {
+            case SEARCH -> get(scenario.uri + "?query=" + SEARCH_QUERIES.get(random.nextInt(SEARCH_QUERIES.size())) + "&filters=" + encode("{\"sort_by\":\"descending\"}"));
+            case RETRIEVE -> get(scenario.uri + "?id=" + articleId);
+            case IMAGE -> get(scenario.uri + "?path=" + encode(data.imagePaths().get(random.nextInt(data.imagePaths().size()))));
+            case LIKE -> post(scenario.uri + "?id=" + articleId, accessToken, "");
+            case COMMENT -> post(scenario.uri, accessToken, "articleId=" + articleId + "&content=" + encode("A comment sent by the perf runner"));
+        };
+
+        long startedAt = System.nanoTime();
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            recorders.get(scenario).record(System.nanoTime() - startedAt, status < 400);
+        } catch (IOException e) {
+            recorders.get(scenario).record(System.nanoTime() - startedAt, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Scenario pick() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) return entry.getKey();
+        }
+        throw new IllegalStateException("The mix is empty");
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String accessToken, String form) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private Map<Scenario, Double> getAllocatedBytes(MeterRegistry meterRegistry) {
+        Map<Scenario, Double> allocatedBytes = new EnumMap<>(Scenario.class);
+
+        for (Scenario scenario : Scenario.values()) {
+            double allocated = meterRegistry.find(RequestAllocationFilter.METER_NAME).tag("uri", scenario.uri).counters()
+                    .stream()
+                    .mapToDouble(Counter::count)
+                    .sum();
+            allocatedBytes.put(scenario, allocated);
+        }
+        return allocatedBytes;
+    }
+
+    private Map<Scenario, Recorder> newRecorders() {
+        Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+        mix.keySet().forEach(scenario -> recorders.put(scenario, new Recorder()));
+        return recorders;
+    }
+
+    private static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) weights.put(Scenario.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        return weights;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void print(List<Map<String, Object>> report, int threads) {
+        System.out.printf("%n%-10s %10s %8s %10s %9s %9s %9s %9s %12s %12s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "KB/request", "MB/s alloc");
+
+        for (Map<String, Object> row : report) {
+            System.out.printf("%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %12.1f %12.1f%n",
+                    row.get("scenario"), row.get("requests"), row.get("errors"), row.get("throughput"),
+                    row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"), row.get("maxMs"),
+                    (double) row.get("allocatedBytesPerRequest") / 1024, (double) row.get("allocationRateBytesPerSecond") / (1024 * 1024));
+        }
+        System.out.printf("(%d client threads)%n", threads);
+    }
+
+    /** The latencies of one scenario, kept whole: a run produces at most a few million of them **/
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long latency, boolean successful) {
+            if (size == latencies.length) latencies = Arrays.copyOf(latencies, size * 2);
+            latencies[size++] = latency;
+            if (!successful) errors++;
+        }
+
+        void merge(Recorder recorder) {
+            if (size + recorder.size > latencies.length) latencies = Arrays.copyOf(latencies, size + recorder.size);
+            System.arraycopy(recorder.latencies, 0, latencies, size, recorder.size);
+            size += recorder.size;
+            errors += recorder.errors;
+        }
+
+        Map<String, Object> summarize(Scenario scenario, Duration duration, double allocatedBytes) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scenario", scenario.name().toLowerCase());
+            summary.put("uri", scenario.uri);
+            summary.put("requests", size);
+            summary.put("errors", errors);
+            summary.put("throughput", size / (double) duration.toSeconds());
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p95Ms", percentile(sorted, 0.95));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", size > 0 ? sorted[size - 1] / 1e6 : 0.0);
+            summary.put("allocatedBytesPerRequest", size > 0 ? allocatedBytes / size : 0.0);
+            summary.put("allocationRateBytesPerSecond", allocatedBytes / duration.toSeconds());
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
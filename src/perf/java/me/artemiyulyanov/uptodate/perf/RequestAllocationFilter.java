@@ -0,0 +1,45 @@
+package me.artemiyulyanov.uptodate.perf;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the servlet threads while handling each route, as perf.request.allocated tagged by the
+ * route pattern. Both the first and the async dispatch are counted, the work of the executors in between is not.
+ */
+public class RequestAllocationFilter implements Filter {
+    public static final String METER_NAME = "perf.request.allocated";
+
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final MeterRegistry meterRegistry;
+
+    public RequestAllocationFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            Counter.builder(METER_NAME)
+                    .baseUnit("bytes")
+                    .tag("method", ((HttpServletRequest) request).getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .increment(allocated);
+        }
+    }
+}
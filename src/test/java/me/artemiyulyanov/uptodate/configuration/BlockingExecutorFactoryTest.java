@@ -0,0 +1,93 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The virtual threads need JDK 21, so the bounding is checked on a platform executor starting a thread per task as well **/
+class BlockingExecutorFactoryTest {
+    private static final int CONCURRENCY = 2;
+    private static final int QUEUE_CAPACITY = 3;
+
+    @Test
+    void threadPerTaskExecutorRunsAtMostConcurrencyTasksAndTheCallerRunsTheOverflow() throws Exception {
+        ExecutorService executor = BlockingExecutorFactory.bound(Executors.newCachedThreadPool(), CONCURRENCY, QUEUE_CAPACITY);
+        assertBounded(executor);
+    }
+
+    @Test
+    void platformExecutorRunsAtMostConcurrencyTasksAndTheCallerRunsTheOverflow() throws Exception {
+        ExecutorService executor = new BlockingExecutorFactory(false).newExecutor("test", CONCURRENCY, QUEUE_CAPACITY);
+        assertBounded(executor);
+    }
+
+    @Test
+    void queueingExecutorNeverRunsTheTaskOnTheCaller() throws Exception {
+        ExecutorService executor = new BlockingExecutorFactory(false).newQueueingExecutor("test", CONCURRENCY);
+        Thread caller = Thread.currentThread();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger callerRuns = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < CONCURRENCY + QUEUE_CAPACITY + 100; i++) {
+                futures.add(executor.submit(() -> {
+                    if (Thread.currentThread() == caller) callerRuns.incrementAndGet();
+                    release.await();
+                    return null;
+                }));
+            }
+
+            release.countDown();
+            for (Future<?> future : futures) future.get(5, TimeUnit.SECONDS);
+            assertThat(callerRuns.get()).isZero();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void assertBounded(ExecutorService executor) throws Exception {
+        Thread caller = Thread.currentThread();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger callerRuns = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < CONCURRENCY + QUEUE_CAPACITY + 2; i++) {
+                futures.add(executor.submit(() -> {
+                    if (Thread.currentThread() == caller) {
+                        callerRuns.incrementAndGet();
+                        return null;
+                    }
+
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            Thread.sleep(200);
+            assertThat(running.get()).isEqualTo(CONCURRENCY);
+            assertThat(callerRuns.get()).isEqualTo(2);
+
+            release.countDown();
+            for (Future<?> future : futures) future.get(5, TimeUnit.SECONDS);
+            assertThat(maxRunning.get()).isEqualTo(CONCURRENCY);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
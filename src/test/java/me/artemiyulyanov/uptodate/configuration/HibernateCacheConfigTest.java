@@ -0,0 +1,48 @@
+package me.artemiyulyanov.uptodate.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HibernateCacheConfigTest {
+    @Test
+    void everyContextCreatesTheRegionsInACacheManagerOfItsOwn() {
+        CacheManager first = createCacheManager();
+        CacheManager second = createCacheManager();
+
+        try {
+            assertThat(second).isNotSameAs(first);
+            assertThat(first.getCache(HibernateCacheConfig.USERS_REGION)).isNotNull();
+            assertThat(second.getCache(HibernateCacheConfig.USERS_REGION)).isNotSameAs(first.getCache(HibernateCacheConfig.USERS_REGION));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void restartedContextCreatesTheRegionsAgain() {
+        createCacheManager().close();
+
+        CacheManager restarted = createCacheManager();
+        try {
+            assertThat(restarted.getCache(HibernateCacheConfig.TOPICS_REGION)).isNotNull();
+        } finally {
+            restarted.close();
+        }
+    }
+
+    private static CacheManager createCacheManager() {
+        HibernateCacheConfig hibernateCacheConfig = new HibernateCacheConfig();
+        ReflectionTestUtils.setField(hibernateCacheConfig, "usersMaxSize", 100L);
+        ReflectionTestUtils.setField(hibernateCacheConfig, "usersTtl", 60000L);
+        ReflectionTestUtils.setField(hibernateCacheConfig, "queriesMaxSize", 100L);
+        ReflectionTestUtils.setField(hibernateCacheConfig, "queriesTtl", 60000L);
+
+        return hibernateCacheConfig.hibernateCacheManager(new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,222 @@
+package me.artemiyulyanov.uptodate.jwt;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.security.Key;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SigningKeyRingTest {
+    private static final String KEYS_HASH = "jwt:keys";
+    private static final String MASTER_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final long ACTIVATION_DELAY = 300;
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private RedisServer redisServer;
+
+    @BeforeEach
+    void startRedis() throws IOException {
+        redisServer = RedisServer.newRedisServer().start();
+    }
+
+    @AfterEach
+    void stopRedis() throws IOException {
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+        if (redisServer != null) redisServer.stop();
+    }
+
+    @Test
+    void everyNodeVerifiesTheTokensSignedByAnother() {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+        SigningKeyRing first = createRing(redisTemplate, MASTER_KEY);
+        SigningKeyRing second = createRing(redisTemplate, MASTER_KEY);
+
+        assertThat(redisTemplate.opsForHash().size(KEYS_HASH)).isEqualTo(1);
+        assertThat(verify(second, signToken(first)).getBody().getSubject()).isEqualTo("user");
+        assertThat(verify(first, signToken(second)).getBody().getSubject()).isEqualTo("user");
+    }
+
+    @Test
+    void rotatedKeyIsOnlyUsedAfterTheActivationDelayAndThePreviousOneIsRetiredAfterTheOverlap() throws InterruptedException {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+        SigningKeyRing ring = createRing(redisTemplate, MASTER_KEY);
+        String firstKid = getKid(signToken(ring));
+
+        Thread.sleep(ACTIVATION_DELAY + 100);
+        ReflectionTestUtils.setField(ring, "rotation", 0L);
+        ring.refresh();
+        ReflectionTestUtils.setField(ring, "rotation", Long.MAX_VALUE);
+
+        assertThat(redisTemplate.opsForHash().size(KEYS_HASH)).isEqualTo(2);
+        assertThat(getKid(signToken(ring))).isEqualTo(firstKid);
+
+        // a node started after the rotation verifies the tokens of both keys
+        SigningKeyRing other = createRing(redisTemplate, MASTER_KEY);
+        String tokenOfFirstKey = signToken(ring);
+        verify(other, tokenOfFirstKey);
+
+        Thread.sleep(ACTIVATION_DELAY + 100);
+        ring.refresh();
+        String secondKid = getKid(signToken(ring));
+        assertThat(secondKid).isNotEqualTo(firstKid);
+        verify(other, signToken(ring));
+
+        ReflectionTestUtils.setField(ring, "overlap", 0L);
+        ring.refresh();
+
+        assertThat(redisTemplate.<String, String>opsForHash().keys(KEYS_HASH)).containsExactly(secondKid);
+        assertThat(ring.getKey(firstKid)).isEmpty();
+        assertThatThrownBy(() -> verify(ring, tokenOfFirstKey)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void signsNothingUntilTheRingHasBeenLoadedFromRedis() throws IOException {
+        int port = getFreePort();
+        StringRedisTemplate redisTemplate = connect(port);
+        SigningKeyRing ring = createRing(redisTemplate, MASTER_KEY);
+
+        assertThat(ring.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThatThrownBy(() -> signToken(ring)).isInstanceOf(IllegalStateException.class);
+
+        RedisServer lateServer = RedisServer.newRedisServer(port).start();
+        try {
+            ring.refresh();
+
+            assertThat(ring.health().getStatus()).isEqualTo(Status.UP);
+            verify(ring, signToken(ring));
+        } finally {
+            lateServer.stop();
+        }
+    }
+
+    @Test
+    void keepsTheLoadedKeysWhileRedisIsUnavailable() throws IOException {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+        SigningKeyRing ring = createRing(redisTemplate, MASTER_KEY);
+        String token = signToken(ring);
+
+        redisServer.stop();
+        redisServer = null;
+        ring.refresh();
+
+        assertThat(ring.health().getStatus()).isEqualTo(Status.UP);
+        verify(ring, token);
+        verify(ring, signToken(ring));
+    }
+
+    @Test
+    void storesTheSecretsEncryptedUnderTheMasterKey() {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+        SigningKeyRing ring = createRing(redisTemplate, MASTER_KEY);
+        String kid = getKid(signToken(ring));
+        String plainSecret = Base64.getEncoder().encodeToString(ring.getKey(kid).orElseThrow().getEncoded());
+
+        String value = redisTemplate.<String, String>opsForHash().get(KEYS_HASH, kid);
+        assertThat(value).contains(":gcm:").doesNotContain(plainSecret);
+
+        // a node with another master key cannot read the ring, so it signs nothing
+        String otherMasterKey = Base64.getEncoder().encodeToString("another master key of 32 bytes!!".getBytes());
+        SigningKeyRing misconfigured = createRing(redisTemplate, otherMasterKey);
+        assertThat(misconfigured.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void rejectsTheSecretsStoredInPlaintext() {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+        String plainValue = System.currentTimeMillis() + ":" + Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+        redisTemplate.opsForHash().put(KEYS_HASH, "plain", plainValue);
+
+        SigningKeyRing ring = createRing(redisTemplate, MASTER_KEY);
+
+        assertThat(ring.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(ring.getKey("plain")).isEmpty();
+        assertThatThrownBy(() -> signToken(ring)).isInstanceOf(IllegalStateException.class);
+        assertThat(redisTemplate.<String, String>opsForHash().entries(KEYS_HASH)).containsExactly(Map.entry("plain", plainValue));
+    }
+
+    @Test
+    void refusesToStartWithoutMasterKey() {
+        StringRedisTemplate redisTemplate = connect(redisServer.getBindPort());
+
+        assertThatThrownBy(() -> createRing(redisTemplate, ""))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private SigningKeyRing createRing(StringRedisTemplate redisTemplate, String masterKey) {
+        SigningKeyRing ring = new SigningKeyRing();
+        ReflectionTestUtils.setField(ring, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(ring, "store", "redis");
+        ReflectionTestUtils.setField(ring, "encodedMasterKey", masterKey);
+        ReflectionTestUtils.setField(ring, "rotation", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(ring, "activationDelay", ACTIVATION_DELAY);
+        ReflectionTestUtils.setField(ring, "overlap", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(ring, "missReloadInterval", 0L);
+        ring.init();
+        return ring;
+    }
+
+    private StringRedisTemplate connect(int port) {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(2)).build()
+        );
+        connectionFactory.afterPropertiesSet();
+        connectionFactories.add(connectionFactory);
+
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        return redisTemplate;
+    }
+
+    private static String signToken(SigningKeyRing ring) {
+        return ring.sign(Jwts.builder().setSubject("user")).compact();
+    }
+
+    private static Jws<Claims> verify(SigningKeyRing ring, String token) {
+        return Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return ring.getKey(header.getKeyId()).orElseThrow(() -> new JwtException("The signing key is unknown"));
+                    }
+                })
+                .build()
+                .parseClaimsJws(token);
+    }
+
+    private static String getKid(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package me.artemiyulyanov.uptodate.mail;
+
+import com.github.fppt.jedismock.RedisServer;
+import me.artemiyulyanov.uptodate.configuration.RedisConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the Lua scripts of the store against jedis-mock, which interprets them with LuaJ **/
+class VerificationCodeStoreTest {
+    private static final String EMAIL = "user@example.com";
+    private static final byte[] PAYLOAD = "{\"username\":\"user\"}".getBytes(StandardCharsets.UTF_8);
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, byte[]> redisTemplate;
+    private VerificationCodeStore verificationCodeStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+
+        redisTemplate = new RedisConfig().verificationCodeRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+
+        verificationCodeStore = new VerificationCodeStore();
+        ReflectionTestUtils.setField(verificationCodeStore, "verificationCodeRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(verificationCodeStore, "maxAttempts", 3);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void rightCodeReturnsThePayloadOnlyOnce() {
+        verificationCodeStore.issue(EMAIL, "123456", PAYLOAD, TTL);
+
+        assertThat(verificationCodeStore.consume(EMAIL, "123456")).hasValue(PAYLOAD);
+        assertThat(verificationCodeStore.consume(EMAIL, "123456")).isEmpty();
+        assertThat(redisTemplate.hasKey("verification:" + EMAIL)).isFalse();
+    }
+
+    @Test
+    void issuedCodeExpiresAfterTheTtl() {
+        verificationCodeStore.issue(EMAIL, "123456", PAYLOAD, TTL);
+
+        assertThat(redisTemplate.getExpire("verification:" + EMAIL, TimeUnit.MILLISECONDS)).isBetween(1L, TTL);
+    }
+
+    @Test
+    void wrongCodesAreCountedAndTheCodeIsDroppedAtMaxAttempts() {
+        verificationCodeStore.issue(EMAIL, "123456", PAYLOAD, TTL);
+
+        assertThat(verificationCodeStore.consume(EMAIL, "000000")).isEmpty();
+        assertThat(verificationCodeStore.consume(EMAIL, "111111")).isEmpty();
+        assertThat(redisTemplate.<String, byte[]>opsForHash().get("verification:" + EMAIL, "attempts"))
+                .isEqualTo("2".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(verificationCodeStore.consume(EMAIL, "222222")).isEmpty();
+        assertThat(redisTemplate.hasKey("verification:" + EMAIL)).isFalse();
+        assertThat(verificationCodeStore.consume(EMAIL, "123456")).isEmpty();
+    }
+
+    @Test
+    void newCodeReplacesThePreviousOneAndResetsTheAttempts() {
+        verificationCodeStore.issue(EMAIL, "123456", PAYLOAD, TTL);
+        verificationCodeStore.consume(EMAIL, "000000");
+        verificationCodeStore.consume(EMAIL, "000000");
+
+        byte[] newPayload = "{\"username\":\"renamed\"}".getBytes(StandardCharsets.UTF_8);
+        verificationCodeStore.issue(EMAIL, "654321", newPayload, TTL);
+
+        assertThat(verificationCodeStore.consume(EMAIL, "123456")).isEmpty();
+        assertThat(verificationCodeStore.consume(EMAIL, "654321")).hasValue(newPayload);
+    }
+
+    @Test
+    void emailIsMatchedRegardlessOfTheCase() {
+        verificationCodeStore.issue(" User@Example.com ", "123456", PAYLOAD, TTL);
+
+        assertThat(verificationCodeStore.consume(EMAIL, "123456")).hasValue(PAYLOAD);
+    }
+}
@@ -0,0 +1,84 @@
+package me.artemiyulyanov.uptodate.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import me.artemiyulyanov.uptodate.services.MediaBlobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class MinioServiceTest {
+    private static final String PUBLIC_ENDPOINT = "https://media.example.com";
+
+    private AmazonS3 amazonS3;
+    private MediaBlobService mediaBlobService;
+    private S3Presigner s3Presigner;
+    private MinioService minioService;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfig minioConfig = new MinioConfig();
+        ReflectionTestUtils.setField(minioConfig, "endpoint", "http://minio:9000");
+        ReflectionTestUtils.setField(minioConfig, "publicEndpoint", PUBLIC_ENDPOINT);
+        ReflectionTestUtils.setField(minioConfig, "accessKey", "admin");
+        ReflectionTestUtils.setField(minioConfig, "secretKey", "admin123");
+
+        amazonS3 = mock(AmazonS3.class);
+        mediaBlobService = mock(MediaBlobService.class);
+        s3Presigner = minioConfig.s3Presigner();
+
+        minioService = new MinioService();
+        ReflectionTestUtils.setField(minioService, "amazonS3", amazonS3);
+        ReflectionTestUtils.setField(minioService, "mediaBlobService", mediaBlobService);
+        ReflectionTestUtils.setField(minioService, "s3Presigner", s3Presigner);
+        ReflectionTestUtils.setField(minioService, "bucket", "photos");
+        ReflectionTestUtils.setField(minioService, "listingCacheTtl", 5000L);
+        ReflectionTestUtils.setField(minioService, "listingCacheSize", 100L);
+        minioService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    @Test
+    void presignedUrlsPointAtThePublicEndpoint() {
+        Date expiration = new Date(System.currentTimeMillis() + 300_000);
+
+        URL uploadUrl = minioService.generatePresignedUploadUrl("articles/1/cover.png", "image/png", expiration);
+        URL downloadUrl = minioService.generatePresignedDownloadUrl("articles/1/cover.png", expiration).orElseThrow();
+
+        for (URL url : new URL[] {uploadUrl, downloadUrl}) {
+            assertThat(url.getProtocol()).isEqualTo("https");
+            assertThat(url.getHost()).isEqualTo("media.example.com");
+            assertThat(url.getPath()).isEqualTo("/photos/articles/1/cover.png");
+            assertThat(url.getQuery()).contains("X-Amz-SignedHeaders=").contains("X-Amz-Expires=");
+        }
+        assertThat(uploadUrl.getQuery()).contains("content-type");
+    }
+
+    @Test
+    void folderIsDeletedInBatchesOfAtMostAThousandKeys() {
+        List<String> objectKeys = IntStream.range(0, 2500).mapToObj(i -> "articles/1/" + i + ".png").toList();
+        ReflectionTestUtils.setField(minioService, "contentAddressed", true);
+        when(mediaBlobService.unbindFolder("articles/1")).thenReturn(objectKeys);
+
+        minioService.deleteFolder("articles/1");
+
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(amazonS3, times(3)).deleteObjects(requests.capture());
+        assertThat(requests.getAllValues()).extracting(request -> request.getKeys().size()).containsExactly(1000, 1000, 500);
+    }
+}
@@ -0,0 +1,59 @@
+package me.artemiyulyanov.uptodate.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
+import me.artemiyulyanov.uptodate.repositories.MediaBlobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:media-blobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MediaBlobService.class, HibernateCacheConfig.class, MediaBlobServiceTest.MetricsConfig.class})
+class MediaBlobServiceTest {
+    private static final String DIGEST = "0".repeat(64);
+
+    @Autowired
+    private MediaBlobService mediaBlobService;
+
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Test
+    void folderDoesNotMatchTheFoldersSharingItsPrefix() {
+        mediaBlobService.bindDirect("articles/1/cover.png", 1);
+        mediaBlobService.bindDirect("articles/1/comments/2/image.png", 1);
+        mediaBlobService.bindDirect("articles/10/cover.png", 1);
+        mediaBlobService.bindDirect("articles/100/cover.png", 1);
+
+        assertThat(mediaBlobService.getFolder("articles/1")).containsExactly("articles/1/comments/2/image.png", "articles/1/cover.png");
+        assertThat(mediaBlobService.folderExists("articles/2")).isFalse();
+    }
+
+    @Test
+    void unbindingAFolderKeepsTheBlobsOfTheFoldersSharingItsPrefix() {
+        mediaBlobService.register("articles/1/cover.png", DIGEST, 1, "image/png");
+        mediaBlobService.bindStored("articles/10/cover.png", DIGEST);
+        mediaBlobService.bindDirect("articles/10/direct.png", 1);
+
+        assertThat(mediaBlobService.unbindFolder("articles/1")).isEmpty();
+
+        assertThat(mediaBlobService.getFolder("articles/10")).containsExactly("articles/10/cover.png", "articles/10/direct.png");
+        assertThat(mediaBlobRepository.findById(DIGEST)).hasValueSatisfying(blob -> assertThat(blob.getReferencesCount()).isEqualTo(1));
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package me.artemiyulyanov.uptodate.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import me.artemiyulyanov.uptodate.configuration.HibernateCacheConfig;
+import me.artemiyulyanov.uptodate.models.User;
+import me.artemiyulyanov.uptodate.repositories.ArticleTopicRepository;
+import me.artemiyulyanov.uptodate.repositories.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/** Each step runs in a transaction of its own, since the second-level cache is only written on commit **/
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-state-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({HibernateCacheConfig.class, UserStateCacheTest.MetricsConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserStateCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArticleTopicRepository articleTopicRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserStateCache userStateCache;
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userStateCache = new UserStateCache();
+        ReflectionTestUtils.setField(userStateCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userStateCache, "entityManagerFactory", entityManagerFactory);
+        ReflectionTestUtils.setField(userStateCache, "redisMessageListenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(userStateCache, "ttl", 60000L);
+        ReflectionTestUtils.setField(userStateCache, "maxSize", 100L);
+        userStateCache.init();
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.deleteAll());
+        entityManagerFactory.getCache().evictAll();
+        userId = transactionTemplate.execute(status -> userRepository.save(User.builder().username("user").email("user@example.com").build()).getId());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void updateCommittedOnThisNodeReplacesTheCachedUser() {
+        assertThat(findUsername()).isEqualTo("user");
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.findById(userId).orElseThrow().setUsername("renamed"));
+        statistics.clear();
+
+        assertThat(findUsername()).isEqualTo("renamed");
+        assertThat(getUsersRegionHits()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteCommittedOnThisNodeEvictsTheCachedUser() {
+        findUsername();
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(userId));
+        statistics.clear();
+
+        // READ_WRITE leaves a lock in place of the entry, which no read is served from
+        assertThat(transactionTemplate.<Optional<User>>execute(status -> userRepository.findById(userId))).isEmpty();
+        assertThat(getUsersRegionHits()).isZero();
+    }
+
+    @Test
+    void broadcastOfAnotherNodeEvictsTheCachedUserAndItsLookupsByUsername() {
+        assertThat(findUsername()).isEqualTo("user");
+        assertThat(findByUsername("user")).isPresent();
+
+        // written by another node, which has only updated its own cache
+        jdbcTemplate.update("UPDATE users SET username = 'renamed' WHERE id = ?", userId);
+        assertThat(findUsername()).isEqualTo("user");
+
+        userStateCache.onBroadcast(userId);
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isFalse();
+        assertThat(findUsername()).isEqualTo("renamed");
+        assertThat(findByUsername("user")).isEmpty();
+    }
+
+    @Test
+    void broadcastKeepsTheOtherCachedQueries() {
+        transactionTemplate.execute(status -> articleTopicRepository.findAll());
+
+        userStateCache.onBroadcast(userId);
+        statistics.clear();
+
+        transactionTemplate.execute(status -> articleTopicRepository.findAll());
+        assertThat(statistics.getQueryRegionStatistics(HibernateCacheConfig.QUERY_RESULTS_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    private long getUsersRegionHits() {
+        return statistics.getDomainDataRegionStatistics(HibernateCacheConfig.USERS_REGION).getHitCount();
+    }
+
+    private Optional<User> findByUsername(String username) {
+        return transactionTemplate.execute(status -> userRepository.findByUsername(username));
+    }
+
+    private String findUsername() {
+        return transactionTemplate.execute(status -> userRepository.findById(userId).orElseThrow().getUsername());
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}